@@ -12,6 +12,9 @@ import galath.ui.Ui;
  */
 public class Galath {
     private static final String FILE_PATH = "./data/galath.txt";
+    private static final String STORAGE_MODE_PROPERTY = "galath.storage";
+    private static final String STORAGE_FORMAT_PROPERTY = "galath.format";
+    private static final String PARALLEL_THRESHOLD_PROPERTY = "galath.parallelThreshold";
 
     private Storage storage;
     private TaskList tasks;
@@ -24,13 +27,70 @@ public class Galath {
      */
     public Galath(String filePath) {
         ui = new Ui();
-        storage = new Storage(filePath);
+        storage = new Storage(filePath, getStorageMode(), getStorageFormat());
         try {
             tasks = new TaskList(storage.load());
         } catch (Exception e) {
             ui.showLoadingError();
             tasks = new TaskList();
         }
+        tasks.setParallelThreshold(getParallelThreshold());
+    }
+
+    /**
+     * Returns the storage mode selected with the galath.storage system property,
+     * e.g. -Dgalath.storage=journal. Defaults to rewriting the whole file on every save.
+     *
+     * @return The selected storage mode
+     */
+    private static Storage.Mode getStorageMode() {
+        String mode = System.getProperty(STORAGE_MODE_PROPERTY, Storage.Mode.SNAPSHOT.name());
+        try {
+            return Storage.Mode.valueOf(mode.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            System.out.println("Warning: Unknown storage mode " + mode + ". Using snapshot mode.");
+            return Storage.Mode.SNAPSHOT;
+        }
+    }
+
+    /**
+     * Returns the data file format selected with the galath.format system property,
+     * e.g. -Dgalath.format=binary. Defaults to the text format.
+     *
+     * @return The selected data file format
+     */
+    private static Storage.Format getStorageFormat() {
+        String format = System.getProperty(STORAGE_FORMAT_PROPERTY, Storage.Format.TEXT.name());
+        try {
+            return Storage.Format.valueOf(format.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            System.out.println("Warning: Unknown storage format " + format + ". Using text format.");
+            return Storage.Format.TEXT;
+        }
+    }
+
+    /**
+     * Returns the list size from which scans and sorts run in parallel, selected with
+     * the galath.parallelThreshold system property, e.g. -Dgalath.parallelThreshold=50000.
+     *
+     * @return The selected threshold
+     */
+    private static int getParallelThreshold() {
+        String threshold = System.getProperty(PARALLEL_THRESHOLD_PROPERTY);
+        if (threshold == null) {
+            return TaskList.DEFAULT_PARALLEL_THRESHOLD;
+        }
+        try {
+            int value = Integer.parseInt(threshold.trim());
+            if (value > 0) {
+                return value;
+            }
+        } catch (NumberFormatException e) {
+            // Falls through to the warning below
+        }
+        System.out.println("Warning: Invalid parallel threshold " + threshold + ". Using "
+                + TaskList.DEFAULT_PARALLEL_THRESHOLD + ".");
+        return TaskList.DEFAULT_PARALLEL_THRESHOLD;
     }
 
     /**
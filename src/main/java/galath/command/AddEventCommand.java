@@ -30,7 +30,7 @@ public class AddEventCommand extends Command {
         tasks.addTask(task);
 
         try {
-            storage.save(tasks.getTasks());
+            storage.saveChanges(tasks);
         } catch (IOException e) {
             ui.showMessage("Warning: Unable to save tasks to file.");
         }
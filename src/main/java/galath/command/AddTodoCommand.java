@@ -40,7 +40,7 @@ public class AddTodoCommand extends Command {
         tasks.addTask(task);
 
         try {
-            storage.save(tasks.getTasks());
+            storage.saveChanges(tasks);
         } catch (IOException e) {
             ui.showMessage("Warning: Unable to save tasks to file.");
         }
@@ -0,0 +1,92 @@
+package galath.command;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+import galath.exception.GalathException;
+import galath.storage.Storage;
+import galath.task.Task;
+import galath.task.TaskList;
+import galath.ui.Ui;
+
+/**
+ * Command to mark, unmark or delete several tasks at once, e.g. "delete 1,5,9",
+ * "mark 3-400", "delete done" or "mark find report".
+ * The whole batch is one change to the list: it is saved once and undone by a single undo.
+ */
+public class BatchCommand extends Command {
+    /** Tasks listed in the confirmation before the rest are only counted. */
+    private static final int MAX_SHOWN = 10;
+
+    /**
+     * What a batch command does to each selected task.
+     */
+    public enum Action {
+        MARK, UNMARK, DELETE
+    }
+
+    private final Action action;
+    private final TaskSelection selection;
+
+    /**
+     * Creates a BatchCommand.
+     *
+     * @param action What to do to each task
+     * @param selection The tasks to act on
+     */
+    public BatchCommand(Action action, TaskSelection selection) {
+        assert action != null && selection != null : "Action and selection should not be null";
+        this.action = action;
+        this.selection = selection;
+    }
+
+    /**
+     * Executes the command on every selected task, saves once, and displays a confirmation.
+     *
+     * @param tasks The task list to change
+     * @param ui The UI to display the confirmation message
+     * @param storage The storage to save the updated task list
+     * @throws GalathException if a selected position does not exist
+     */
+    @Override
+    public void execute(TaskList tasks, Ui ui, Storage storage) throws GalathException {
+        int[] indices = selection.resolve(tasks);
+        if (indices.length == 0) {
+            ui.showMessage("There are no " + selection + ".");
+            return;
+        }
+
+        ArrayList<Task> affected = action == Action.DELETE
+                ? tasks.deleteTasks(indices)
+                : tasks.setTasksDone(indices, action == Action.MARK);
+
+        try {
+            storage.saveChanges(tasks);
+        } catch (IOException e) {
+            ui.showMessage("Warning: Unable to save tasks to file.");
+        }
+
+        StringBuilder message = new StringBuilder();
+        switch (action) {
+            case MARK:
+                message.append("Nice! I've marked ").append(affected.size()).append(" task(s) as done:");
+                break;
+            case UNMARK:
+                message.append("OK, I've marked ").append(affected.size()).append(" task(s) as not done yet:");
+                break;
+            default:
+                message.append("Noted. I've removed ").append(affected.size()).append(" task(s):");
+                break;
+        }
+        for (int i = 0; i < Math.min(affected.size(), MAX_SHOWN); i++) {
+            message.append("\n       ").append(affected.get(i));
+        }
+        if (affected.size() > MAX_SHOWN) {
+            message.append("\n       ... and ").append(affected.size() - MAX_SHOWN).append(" more");
+        }
+        if (action == Action.DELETE) {
+            message.append("\n     Now you have ").append(tasks.size()).append(" tasks in the list.");
+        }
+        ui.showMessage(message.toString());
+    }
+}
@@ -0,0 +1,56 @@
+package galath.command;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+import galath.storage.Storage;
+import galath.task.TaskList;
+import galath.ui.Ui;
+
+/**
+ * Command to find and display tasks in a range of dates.
+ * Shows deadlines due within the range and events overlapping it, in chronological order.
+ */
+public class BetweenCommand extends Command {
+    private static final DateTimeFormatter DISPLAY_FORMAT = DateTimeFormatter.ofPattern("MMM d yyyy");
+
+    private final LocalDate from;
+    private final LocalDate to;
+
+    /**
+     * Creates a BetweenCommand for the specified range of dates.
+     *
+     * @param from The first date of the range
+     * @param to The last date of the range, not before the first
+     */
+    public BetweenCommand(LocalDate from, LocalDate to) {
+        assert !from.isAfter(to) : "Range should not end before it starts";
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * Executes the command to find tasks in the range.
+     * Each task is displayed as soon as it is found, so wide ranges never build one huge message.
+     *
+     * @param tasks The task list to search
+     * @param ui The UI to display the results
+     * @param storage The storage (not used)
+     */
+    @Override
+    public void execute(TaskList tasks, Ui ui, Storage storage) {
+        String range = from.format(DISPLAY_FORMAT) + " and " + to.format(DISPLAY_FORMAT);
+        int[] count = {0};
+        tasks.forEachTaskBetween(from, to, task -> {
+            if (count[0] == 0) {
+                ui.showMessage("Here are the tasks between " + range + ":");
+            }
+            count[0]++;
+            ui.showMessageLine(count[0] + "." + task);
+        });
+
+        if (count[0] == 0) {
+            ui.showMessage("No tasks found between " + range);
+        }
+    }
+}
@@ -14,6 +14,7 @@ import galath.ui.Ui;
  */
 public class DeleteCommand extends Command {
     private final int taskIndex;
+    private final long taskId;
 
     /**
      * Creates a DeleteCommand for the specified task index.
@@ -21,7 +22,29 @@ public class DeleteCommand extends Command {
      * @param taskIndex The index of the task to delete (0-based)
      */
     public DeleteCommand(int taskIndex) {
+        this(taskIndex, 0);
+    }
+
+    /**
+     * Creates a DeleteCommand for a task given by position or, if taskId is positive, by ID.
+     *
+     * @param taskIndex The index of the task (0-based)
+     * @param taskId The ID of the task, or 0 to use the index
+     */
+    private DeleteCommand(int taskIndex, long taskId) {
         this.taskIndex = taskIndex;
+        this.taskId = taskId;
+    }
+
+    /**
+     * Creates a DeleteCommand for the task with the specified ID, which stays valid when the list is sorted.
+     *
+     * @param taskId The ID of the task to delete
+     * @return The command
+     */
+    public static DeleteCommand byId(long taskId) {
+        assert taskId > 0 : "Task ID should be positive";
+        return new DeleteCommand(-1, taskId);
     }
 
     /**
@@ -31,14 +54,14 @@ public class DeleteCommand extends Command {
      * @param tasks The task list to delete from
      * @param ui The UI to display the confirmation message
      * @param storage The storage to save the updated task list
-     * @throws GalathException if the task index is invalid
+     * @throws GalathException if the task index or ID is invalid
      */
     @Override
     public void execute(TaskList tasks, Ui ui, Storage storage) throws GalathException {
-        Task removedTask = tasks.deleteTask(taskIndex);
+        Task removedTask = taskId > 0 ? tasks.deleteTaskById(taskId) : tasks.deleteTask(taskIndex);
 
         try {
-            storage.save(tasks.getTasks());
+            storage.saveChanges(tasks);
         } catch (IOException e) {
             ui.showMessage("Warning: Unable to save tasks to file.");
         }
@@ -1,24 +1,31 @@
 package galath.command;
 
+import java.io.IOException;
+
 import galath.storage.Storage;
 import galath.task.TaskList;
 import galath.ui.Ui;
 
 /**
  * Command to exit the program.
- * Displays a goodbye message and terminates the main loop.
+ * Flushes pending saves, displays a goodbye message and terminates the main loop.
  */
 public class ExitCommand extends Command {
 
     /**
-     * Executes the exit command by displaying a goodbye message.
+     * Executes the exit command by flushing pending saves and displaying a goodbye message.
      *
      * @param tasks The task list (not used)
      * @param ui The UI to display the goodbye message
-     * @param storage The storage (not used)
+     * @param storage The storage to flush before exiting
      */
     @Override
     public void execute(TaskList tasks, Ui ui, Storage storage) {
+        try {
+            storage.flush();
+        } catch (IOException e) {
+            ui.showMessage("Warning: Unable to save tasks to file.");
+        }
         ui.showGoodbye();
     }
 
@@ -31,4 +38,4 @@ public class ExitCommand extends Command {
     public boolean isExit() {
         return true;
     }
-}
\ No newline at end of file
+}
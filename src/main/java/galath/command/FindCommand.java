@@ -9,10 +9,12 @@ import galath.ui.Ui;
 
 /**
  * Command to find tasks by searching for a keyword in task descriptions.
- * The search is case-insensitive and matches any part of the description.
+ * The search is case-insensitive and matches any part of the description,
+ * or only whole words when asked to.
  */
 public class FindCommand extends Command {
     private final String keyword;
+    private final boolean isWholeWord;
 
     /**
      * Creates a FindCommand with the specified search keyword.
@@ -20,12 +22,24 @@ public class FindCommand extends Command {
      * @param keyword The keyword to search for in task descriptions
      */
     public FindCommand(String keyword) {
+        this(keyword, false);
+    }
+
+    /**
+     * Creates a FindCommand with the specified search keyword and matching mode.
+     *
+     * @param keyword The keyword to search for in task descriptions
+     * @param isWholeWord Whether every word of the keyword must appear as a whole word
+     */
+    public FindCommand(String keyword, boolean isWholeWord) {
         this.keyword = keyword;
+        this.isWholeWord = isWholeWord;
     }
 
     /**
      * Executes the command to find tasks matching the keyword.
-     * Displays all tasks whose descriptions contain the keyword (case-insensitive).
+     * Displays all tasks whose descriptions contain the keyword (case-insensitive),
+     * one line at a time.
      *
      * @param tasks   The task list to search
      * @param ui      The UI to display the results
@@ -33,16 +47,15 @@ public class FindCommand extends Command {
      */
     @Override
     public void execute(TaskList tasks, Ui ui, Storage storage) {
-        ArrayList<Task> matchingTasks = tasks.findTasks(keyword);
+        ArrayList<Task> matchingTasks = isWholeWord ? tasks.findTasksByWord(keyword) : tasks.findTasks(keyword);
 
         if (matchingTasks.isEmpty()) {
             ui.showMessage("No matching tasks found.");
         } else {
-            StringBuilder message = new StringBuilder("Here are the matching tasks in your list:");
+            ui.showMessage("Here are the matching tasks in your list:");
             for (int i = 0; i < matchingTasks.size(); i++) {
-                message.append("\n     ").append(i + 1).append(".").append(matchingTasks.get(i));
+                ui.showMessageLine((i + 1) + "." + matchingTasks.get(i));
             }
-            ui.showMessage(message.toString());
         }
     }
 }
@@ -27,7 +27,7 @@ public class FindOnCommand extends Command {
 
     /**
      * Executes the command to find tasks on the specified date.
-     * Displays all matching deadlines and events.
+     * Displays all matching deadlines and events, one line at a time.
      *
      * @param tasks The task list to search
      * @param ui The UI to display the results
@@ -41,12 +41,11 @@ public class FindOnCommand extends Command {
             ui.showMessage("No tasks found on " +
                     date.format(DateTimeFormatter.ofPattern("MMM d yyyy")));
         } else {
-            StringBuilder message = new StringBuilder("Here are the tasks on " +
+            ui.showMessage("Here are the tasks on " +
                     date.format(DateTimeFormatter.ofPattern("MMM d yyyy")) + ":");
             for (int i = 0; i < matchingTasks.size(); i++) {
-                message.append("\n     ").append(i + 1).append(".").append(matchingTasks.get(i));
+                ui.showMessageLine((i + 1) + "." + matchingTasks.get(i));
             }
-            ui.showMessage(message.toString());
         }
     }
 }
\ No newline at end of file
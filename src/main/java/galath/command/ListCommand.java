@@ -1,17 +1,83 @@
 package galath.command;
 
 import galath.storage.Storage;
+import galath.task.Deadline;
+import galath.task.Event;
+import galath.task.SortKey;
+import galath.task.Task;
 import galath.task.TaskList;
+import galath.task.Todo;
 import galath.ui.Ui;
 
+import java.util.List;
+
 /**
  * Command to list all tasks in the task list.
- * Displays all tasks with their index numbers and completion status.
+ * Displays all tasks with their index numbers, completion status and IDs,
+ * followed by a summary of how many are done.
+ * A view lists the tasks in another order instead, without changing the list,
+ * and a status filter lists only the done or only the pending tasks.
+ * Any of these can be shown a page at a time. Tasks are displayed one line at a time
+ * as they are read, so even a huge list is never built into one message. A UI that
+ * keeps everything it shows sets a page size, and then gets the first page by default.
  */
 public class ListCommand extends Command {
+    /** Tasks per page when a page is asked for without a size. */
+    public static final int DEFAULT_PAGE_SIZE = 50;
+
+    private final SortKey.Field view;
+    private final Boolean status;
+    private final int page;
+    private final int pageSize;
+
+    /**
+     * Creates a ListCommand that lists the tasks in list order.
+     */
+    public ListCommand() {
+        this(null, null, 0, 0);
+    }
+
+    /**
+     * Creates a ListCommand that lists the tasks in the order of a view.
+     *
+     * @param view The value to order by, or null for list order
+     */
+    public ListCommand(SortKey.Field view) {
+        this(view, null, 0, 0);
+    }
+
+    private ListCommand(SortKey.Field view, Boolean status, int page, int pageSize) {
+        this.view = view;
+        this.status = status;
+        this.page = page;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Creates a ListCommand that lists only the tasks that are done, or only those that are not.
+     *
+     * @param isDone Whether to list the done tasks rather than the pending ones
+     * @return The command
+     */
+    public static ListCommand withStatus(boolean isDone) {
+        return new ListCommand(null, isDone, 0, 0);
+    }
+
+    /**
+     * Returns a command that lists the same tasks, but only one page of them.
+     * Tasks keep the numbers they have in the full listing.
+     *
+     * @param page The page to show (1-based)
+     * @param pageSize The number of tasks per page
+     * @return The command
+     */
+    public ListCommand withPage(int page, int pageSize) {
+        assert page > 0 && pageSize > 0 : "Page and page size should be positive";
+        return new ListCommand(view, status, page, pageSize);
+    }
 
     /**
-     * Executes the list command by displaying all tasks.
+     * Executes the list command by displaying all tasks, or the requested page of them.
      * If the task list is empty, displays a message indicating so.
      *
      * @param tasks The task list to display
@@ -24,11 +90,143 @@ public class ListCommand extends Command {
             ui.showMessage("Your task list is empty!");
             return;
         }
+        if (page == 0 && ui.getListPageSize() > 0) {
+            withPage(1, ui.getListPageSize()).execute(tasks, ui, storage);
+            return;
+        }
 
-        StringBuilder message = new StringBuilder("Here are the tasks in your list:");
-        for (int i = 0; i < tasks.size (); i++) {
-            message.append("\n     ").append(i + 1).append(". ").append(tasks.getTasks().get(i));
+        if (view != null) {
+            showView(tasks, ui);
+            return;
+        }
+        if (status != null) {
+            showWithStatus(tasks, ui, status);
+            return;
+        }
+
+        List<Task> snapshot = tasks.snapshot();
+        if (!showHeader(ui, "Here are the tasks in your list", snapshot.size())) {
+            return;
+        }
+        for (int i = firstShown(); i < endShown(snapshot.size()); i++) {
+            showTask(ui, i + 1, snapshot.get(i));
         }
-        ui.showMessage(message.toString());
+        ui.showMessageLine(summarize(tasks));
+    }
+
+    /**
+     * Displays only the done or only the pending tasks, numbered by their list positions.
+     *
+     * @param tasks The task list to display
+     * @param ui The UI to display the task list
+     * @param isDone Whether to display the done tasks rather than the pending ones
+     */
+    private void showWithStatus(TaskList tasks, Ui ui, boolean isDone) {
+        String label = isDone ? "done" : "pending";
+        int total = isDone ? tasks.getDoneCount() : tasks.getPendingCount();
+        if (total == 0) {
+            ui.showMessage("You have no " + label + " tasks.");
+            return;
+        }
+
+        if (!showHeader(ui, "Here are your " + label + " tasks", total)) {
+            return;
+        }
+        int first = firstShown();
+        int end = endShown(total);
+        int[] count = {0};
+        tasks.forEachTaskWithStatus(isDone, (task, i) -> {
+            if (count[0] >= first && count[0] < end) {
+                showTask(ui, i + 1, task);
+            }
+            count[0]++;
+        });
+        ui.showMessageLine(summarize(tasks));
+    }
+
+    /**
+     * Summarizes the list from its running counts, without looking at the tasks.
+     *
+     * @param tasks The task list
+     * @return For example "3 task(s): 1 done, 2 pending (1 todo, 1 deadline, 1 event)."
+     */
+    private static String summarize(TaskList tasks) {
+        return tasks.size() + " task(s): " + tasks.getDoneCount() + " done, " + tasks.getPendingCount()
+                + " pending (" + tasks.getTypeCount(Todo.class) + " todo, "
+                + tasks.getTypeCount(Deadline.class) + " deadline, "
+                + tasks.getTypeCount(Event.class) + " event).";
+    }
+
+    /**
+     * Displays the tasks in the order of the view. Numbers here are not list
+     * positions, so the IDs are what other commands accept.
+     *
+     * @param tasks The task list to display
+     * @param ui The UI to display the task list
+     */
+    private void showView(TaskList tasks, Ui ui) {
+        List<Task> ordered = tasks.getTasksInOrder(view);
+        if (ordered.isEmpty()) {
+            ui.showMessage("No tasks to list by " + view.name().toLowerCase() + ".");
+            return;
+        }
+
+        if (!showHeader(ui, "Here are the tasks by " + view.name().toLowerCase()
+                + " (use the #ID to mark, unmark or delete)", ordered.size())) {
+            return;
+        }
+        for (int i = firstShown(); i < endShown(ordered.size()); i++) {
+            showTask(ui, i + 1, ordered.get(i));
+        }
+    }
+
+    /**
+     * Displays the first line of the listing, with the page number if paged.
+     *
+     * @param ui The UI to display the line
+     * @param header The first line, without the closing colon
+     * @param total The number of tasks in the full listing
+     * A listing that fits on one page is shown without a page number.
+     *
+     * @return false if the requested page is past the end, which is reported instead
+     */
+    private boolean showHeader(Ui ui, String header, int total) {
+        if (page == 0) {
+            ui.showMessage(header + ":");
+            return true;
+        }
+        int pageCount = (int) ((total + (long) pageSize - 1) / pageSize);
+        if (page > pageCount) {
+            ui.showMessage("There is no page " + page + ". The " + total + " task(s) fill "
+                    + pageCount + " page(s) of " + pageSize + ".");
+            return false;
+        }
+        if (pageCount == 1) {
+            ui.showMessage(header + ":");
+            return true;
+        }
+        ui.showMessage(header + " (page " + page + " of " + pageCount + "):");
+        return true;
+    }
+
+    /**
+     * Returns the index in the full listing of the first task shown.
+     */
+    private int firstShown() {
+        return page == 0 ? 0 : (int) Math.min(Integer.MAX_VALUE, (long) (page - 1) * pageSize);
+    }
+
+    /**
+     * Returns the index in the full listing just past the last task shown.
+     */
+    private int endShown(int total) {
+        return page == 0 ? total : (int) Math.min(total, (long) firstShown() + pageSize);
+    }
+
+    /**
+     * Displays one task as its own line.
+     */
+    private static void showTask(Ui ui, int number, Task task) {
+        ui.showMessageLine(number + ". " + task + " (#" + task.getId() + ")");
     }
-}
\ No newline at end of file
+}
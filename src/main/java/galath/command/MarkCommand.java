@@ -14,6 +14,7 @@ import galath.ui.Ui;
  */
 public class MarkCommand extends Command {
     private final int taskIndex;
+    private final long taskId;
 
     /**
      * Creates a MarkCommand for the specified task index.
@@ -21,7 +22,29 @@ public class MarkCommand extends Command {
      * @param taskIndex The index of the task to mark (0-based)
      */
     public MarkCommand(int taskIndex) {
+        this(taskIndex, 0);
+    }
+
+    /**
+     * Creates a MarkCommand for a task given by position or, if taskId is positive, by ID.
+     *
+     * @param taskIndex The index of the task (0-based)
+     * @param taskId The ID of the task, or 0 to use the index
+     */
+    private MarkCommand(int taskIndex, long taskId) {
         this.taskIndex = taskIndex;
+        this.taskId = taskId;
+    }
+
+    /**
+     * Creates a MarkCommand for the task with the specified ID, which stays valid when the list is sorted.
+     *
+     * @param taskId The ID of the task to mark
+     * @return The command
+     */
+    public static MarkCommand byId(long taskId) {
+        assert taskId > 0 : "Task ID should be positive";
+        return new MarkCommand(-1, taskId);
     }
 
     /**
@@ -31,15 +54,14 @@ public class MarkCommand extends Command {
      * @param tasks The task list containing the task to mark
      * @param ui The UI to display the confirmation message
      * @param storage The storage to save the updated task list
-     * @throws GalathException if the task index is invalid
+     * @throws GalathException if the task index or ID is invalid
      */
     @Override
     public void execute(TaskList tasks, Ui ui, Storage storage) throws GalathException {
-        Task task = tasks.getTask(taskIndex);
-        task.markAsDone();
+        Task task = taskId > 0 ? tasks.markTaskById(taskId) : tasks.markTask(taskIndex);
 
         try {
-            storage.save(tasks.getTasks());
+            storage.saveChanges(tasks);
         } catch (IOException e) {
             ui.showMessage("Warning: Unable to save tasks to file.");
         }
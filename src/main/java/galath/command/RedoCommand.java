@@ -0,0 +1,37 @@
+package galath.command;
+
+import java.io.IOException;
+
+import galath.storage.Storage;
+import galath.task.TaskList;
+import galath.ui.Ui;
+
+/**
+ * Command to redo the last change that was undone.
+ * Making any other change to the list first discards the changes left to redo.
+ */
+public class RedoCommand extends Command {
+
+    /**
+     * Executes the redo command, reapplies the undone change and saves the list.
+     *
+     * @param tasks The task list to restore
+     * @param ui The UI to display the result
+     * @param storage The storage to save the restored list
+     */
+    @Override
+    public void execute(TaskList tasks, Ui ui, Storage storage) {
+        if (!tasks.redo()) {
+            ui.showMessage("Nothing to redo.");
+            return;
+        }
+
+        try {
+            storage.saveChanges(tasks);
+        } catch (IOException e) {
+            ui.showMessage("Warning: Unable to save tasks to file.");
+        }
+
+        ui.showMessage("Redone. Now you have " + tasks.size() + " tasks in the list.");
+    }
+}
@@ -0,0 +1,47 @@
+package galath.command;
+
+import java.io.IOException;
+
+import galath.storage.ScrubReport;
+import galath.storage.Storage;
+import galath.task.TaskList;
+import galath.ui.Ui;
+
+/**
+ * Command to check the integrity of the data file.
+ * Verifies the checksum of every record without parsing the tasks, and lists any problems found.
+ */
+public class ScrubCommand extends Command {
+
+    /**
+     * Executes the scrub command by checking the data file and displaying the result.
+     *
+     * @param tasks The task list (not used)
+     * @param ui The UI to display the result
+     * @param storage The storage whose data file is checked
+     */
+    @Override
+    public void execute(TaskList tasks, Ui ui, Storage storage) {
+        ScrubReport report;
+        try {
+            report = storage.scrub();
+        } catch (IOException e) {
+            ui.showMessage("Warning: Unable to read the data file.");
+            return;
+        }
+
+        if (!report.isChecksummed()) {
+            ui.showMessage("The data file has no checksums to check.\n"
+                    + "     Start Galath with -Dgalath.format=checksummed to add them.");
+        } else if (report.getProblems().isEmpty()) {
+            ui.showMessage("Checked " + report.getRecordCount() + " record(s). The data file is intact.");
+        } else {
+            StringBuilder message = new StringBuilder("Checked " + report.getRecordCount() + " record(s) and found "
+                    + report.getProblems().size() + " problem(s):");
+            for (String problem : report.getProblems()) {
+                message.append("\n     ").append(problem);
+            }
+            ui.showMessage(message.toString());
+        }
+    }
+}
@@ -1,37 +1,36 @@
 package galath.command;
 
+import galath.task.SortKey;
+import galath.task.Task;
 import galath.task.TaskList;
 import galath.ui.Ui;
 import galath.storage.Storage;
 import galath.exception.GalathException;
 
 import java.io.IOException;
+import java.util.List;
 
 /**
- * Command to sort tasks in the task list.
- * Supports the following sort types:
+ * Command to sort tasks in the task list by one or more keys.
+ * Supports the following keys, each optionally followed by "desc":
  * - "name": alphabetically by description (all tasks)
- * - "deadline": chronologically by due date (deadlines only)
- * - "event": chronologically by start date (events only)
+ * - "deadline": chronologically by due date (deadlines first)
+ * - "event": chronologically by start date (events first)
+ * - "date": chronologically by due or start date (deadlines and events first)
  * - "type": groups tasks by type (todo, deadline, event)
  */
 public class SortCommand extends Command {
 
-    /** Represents the type of sort to perform. */
-    public enum SortType {
-        NAME, DEADLINE, EVENT, TYPE
-    }
-
-    private final SortType sortType;
+    private final List<SortKey> keys;
 
     /**
-     * Creates a SortCommand with the specified sort type.
+     * Creates a SortCommand with the specified sort keys.
      *
-     * @param sortType The type of sort to apply
+     * @param keys The sort keys, most significant first
      */
-    public SortCommand(SortType sortType) {
-        assert sortType != null : "Sort type should not be null";
-        this.sortType = sortType;
+    public SortCommand(List<SortKey> keys) {
+        assert keys != null && !keys.isEmpty() : "Sort keys should not be empty";
+        this.keys = keys;
     }
 
     /**
@@ -52,39 +51,50 @@ public class SortCommand extends Command {
             return;
         }
 
-        switch (sortType) {
-            case NAME:
-                tasks.sortByName();
-                ui.showMessage("Sorted all tasks alphabetically by name.");
-                break;
-            case DEADLINE:
-                tasks.sortDeadlines();
-                ui.showMessage("Sorted deadlines chronologically.");
-                break;
-            case EVENT:
-                tasks.sortEvents();
-                ui.showMessage("Sorted events chronologically by start date.");
-                break;
-            case TYPE:
-                tasks.sortByType();
-                ui.showMessage("Sorted tasks by type: Todos, Deadlines, Events.");
-                break;
-            default:
-                throw new GalathException("Unknown sort type.");
-        }
+        tasks.sortBy(keys);
+        ui.showMessage(describeSort());
 
-        // Display sorted list
-        StringBuilder message = new StringBuilder("\n     Here are the tasks in your list:");
-        for (int i = 0; i < tasks.size(); i++) {
-            message.append("\n     ").append(i + 1).append(". ").append(tasks.getTasks().get(i));
+        // Display sorted list, a line at a time
+        List<Task> sorted = tasks.snapshot();
+        ui.showMessageLine("");
+        ui.showMessageLine("Here are the tasks in your list:");
+        for (int i = 0; i < sorted.size(); i++) {
+            Task task = sorted.get(i);
+            ui.showMessageLine((i + 1) + ". " + task + " (#" + task.getId() + ")");
         }
-        ui.showMessage(message.toString());
 
         // Persist new order
         try {
-            storage.save(tasks.getTasks());
+            storage.saveChanges(tasks);
         } catch (IOException e) {
             ui.showMessage("Warning: Unable to save sorted tasks to file.");
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Describes the sort that was applied.
+     *
+     * @return The message shown after sorting
+     */
+    private String describeSort() {
+        if (keys.size() == 1 && !keys.get(0).getIsDescending()) {
+            switch (keys.get(0).getField()) {
+                case NAME:
+                    return "Sorted all tasks alphabetically by name.";
+                case DEADLINE:
+                    return "Sorted deadlines chronologically.";
+                case EVENT:
+                    return "Sorted events chronologically by start date.";
+                case TYPE:
+                    return "Sorted tasks by type: Todos, Deadlines, Events.";
+                default:
+                    break;
+            }
+        }
+        StringBuilder message = new StringBuilder("Sorted tasks by ");
+        for (int i = 0; i < keys.size(); i++) {
+            message.append(i == 0 ? "" : ", ").append(keys.get(i));
+        }
+        return message.append(".").toString();
+    }
+}
@@ -0,0 +1,104 @@
+package galath.command;
+
+import java.util.BitSet;
+
+import galath.exception.GalathException;
+import galath.task.TaskList;
+
+/**
+ * Selects the tasks a batch command acts on: given positions, the done or pending
+ * tasks, or the tasks containing a keyword. Predicates are resolved against the list
+ * when the command runs.
+ */
+public class TaskSelection {
+    /** Task numbers (1-based) as first and last of each range, one pair after another. */
+    private final int[] ranges;
+    private final Boolean status;
+    private final String keyword;
+
+    private TaskSelection(int[] ranges, Boolean status, String keyword) {
+        this.ranges = ranges;
+        this.status = status;
+        this.keyword = keyword;
+    }
+
+    /**
+     * Selects tasks by number, as ranges that may overlap and come in any order.
+     *
+     * @param ranges The first and last task number (1-based) of each range, one pair after another
+     * @return The selection
+     */
+    public static TaskSelection of(int[] ranges) {
+        assert ranges.length > 0 && ranges.length % 2 == 0 : "Selection should hold pairs of task numbers";
+        return new TaskSelection(ranges, null, null);
+    }
+
+    /**
+     * Selects the tasks that are done, or the ones that are not.
+     *
+     * @param isDone Whether to select done or pending tasks
+     * @return The selection
+     */
+    public static TaskSelection withStatus(boolean isDone) {
+        return new TaskSelection(null, isDone, null);
+    }
+
+    /**
+     * Selects the tasks whose description contains a keyword, ignoring case.
+     *
+     * @param keyword The keyword
+     * @return The selection
+     */
+    public static TaskSelection containing(String keyword) {
+        assert !keyword.isEmpty() : "Keyword should not be empty";
+        return new TaskSelection(null, null, keyword);
+    }
+
+    /**
+     * Returns the positions of the selected tasks in the list as it is now.
+     *
+     * Every range is checked against the list before any is expanded, so a huge
+     * number costs nothing but the error.
+     *
+     * @param tasks The task list
+     * @return The positions (0-based), ascending and without repeats
+     * @throws GalathException if a task number is past the end of the list
+     */
+    public int[] resolve(TaskList tasks) throws GalathException {
+        if (ranges != null) {
+            return resolveRanges(tasks.size());
+        } else if (status != null) {
+            return tasks.positionsWithStatus(status);
+        }
+        return tasks.positionsContaining(keyword);
+    }
+
+    private int[] resolveRanges(int size) throws GalathException {
+        for (int i = 1; i < ranges.length; i += 2) {
+            if (ranges[i] > size) {
+                throw new GalathException("Task number " + ranges[i] + " does not exist. You have "
+                        + size + " task(s) in your list.");
+            }
+        }
+        BitSet positions = new BitSet(size);
+        for (int i = 0; i < ranges.length; i += 2) {
+            positions.set(ranges[i] - 1, ranges[i + 1]);
+        }
+        return positions.stream().toArray();
+    }
+
+    /**
+     * Describes what was selected, for when nothing matched.
+     *
+     * @return A description such as "done tasks"
+     */
+    @Override
+    public String toString() {
+        if (ranges != null) {
+            return "selected tasks";
+        } else if (status != null) {
+            return status ? "done tasks" : "pending tasks";
+        }
+        return "tasks containing \"" + keyword + "\"";
+    }
+}
@@ -0,0 +1,37 @@
+package galath.command;
+
+import java.io.IOException;
+
+import galath.storage.Storage;
+import galath.task.TaskList;
+import galath.ui.Ui;
+
+/**
+ * Command to undo the last change to the task list.
+ * Adds, deletes, marks, unmarks and sorts can be undone, up to several hundred steps back.
+ */
+public class UndoCommand extends Command {
+
+    /**
+     * Executes the undo command, restores the previous version of the list and saves it.
+     *
+     * @param tasks The task list to restore
+     * @param ui The UI to display the result
+     * @param storage The storage to save the restored list
+     */
+    @Override
+    public void execute(TaskList tasks, Ui ui, Storage storage) {
+        if (!tasks.undo()) {
+            ui.showMessage("Nothing to undo.");
+            return;
+        }
+
+        try {
+            storage.saveChanges(tasks);
+        } catch (IOException e) {
+            ui.showMessage("Warning: Unable to save tasks to file.");
+        }
+
+        ui.showMessage("Undone. Now you have " + tasks.size() + " tasks in the list.");
+    }
+}
@@ -13,18 +13,45 @@ import galath.ui.Ui;
  */
 public class UnmarkCommand extends Command {
     private final int taskIndex;
+    private final long taskId;
 
+    /**
+     * Creates a UnmarkCommand for the specified task index.
+     *
+     * @param taskIndex The index of the task to unmark (0-based)
+     */
     public UnmarkCommand(int taskIndex) {
+        this(taskIndex, 0);
+    }
+
+    /**
+     * Creates a UnmarkCommand for a task given by position or, if taskId is positive, by ID.
+     *
+     * @param taskIndex The index of the task (0-based)
+     * @param taskId The ID of the task, or 0 to use the index
+     */
+    private UnmarkCommand(int taskIndex, long taskId) {
         this.taskIndex = taskIndex;
+        this.taskId = taskId;
+    }
+
+    /**
+     * Creates a UnmarkCommand for the task with the specified ID, which stays valid when the list is sorted.
+     *
+     * @param taskId The ID of the task to unmark
+     * @return The command
+     */
+    public static UnmarkCommand byId(long taskId) {
+        assert taskId > 0 : "Task ID should be positive";
+        return new UnmarkCommand(-1, taskId);
     }
 
     @Override
     public void execute(TaskList tasks, Ui ui, Storage storage) throws GalathException {
-        Task task = tasks.getTask(taskIndex);
-        task.markAsNotDone();
+        Task task = taskId > 0 ? tasks.unmarkTaskById(taskId) : tasks.unmarkTask(taskIndex);
 
         try {
-            storage.save(tasks.getTasks());
+            storage.saveChanges(tasks);
         } catch (IOException e) {
             ui.showMessage("Warning: Unable to save tasks to file.");
         }
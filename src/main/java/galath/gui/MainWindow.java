@@ -2,6 +2,7 @@ package galath.gui;
 
 import galath.Galath;
 import galath.command.Command;
+import galath.command.ListCommand;
 import galath.exception.GalathException;
 import galath.parser.Parser;
 import galath.ui.Ui;
@@ -19,6 +20,9 @@ import javafx.scene.layout.VBox;
  * Handles user interactions and displays chat messages.
  */
 public class MainWindow extends AnchorPane {
+    /** Lines of a single response kept for the dialog; the rest are only counted. */
+    private static final int MAX_RESPONSE_LINES = 500;
+
     @FXML
     private ScrollPane scrollPane;
     @FXML
@@ -107,6 +111,9 @@ public class MainWindow extends AnchorPane {
 
     /**
      * Gets a response from Galath for the given input.
+     * Lists are shown a page at a time, and a long response is cut off after
+     * {@value #MAX_RESPONSE_LINES} lines, so the response held for the dialog stays
+     * small however many tasks there are.
      *
      * @param input The user's input command
      * @return Galath's response message
@@ -117,12 +124,25 @@ public class MainWindow extends AnchorPane {
 
             // Capture output using a custom Ui that returns strings
             StringBuilder output = new StringBuilder();
+            int[] lineCount = {0};
             Ui guiUi = new Ui() {
                 @Override
                 public void showMessage(String message) {
                     output.append(message);
                 }
 
+                @Override
+                public void showMessageLine(String line) {
+                    if (lineCount[0]++ < MAX_RESPONSE_LINES) {
+                        output.append("\n     ").append(line);
+                    }
+                }
+
+                @Override
+                public int getListPageSize() {
+                    return ListCommand.DEFAULT_PAGE_SIZE;
+                }
+
                 @Override
                 public void showError(String message) {
                     output.append("OOPS!!! ").append(message);
@@ -135,6 +155,9 @@ public class MainWindow extends AnchorPane {
             };
 
             command.execute(galath.getTasks(), guiUi, galath.getStorage());
+            if (lineCount[0] > MAX_RESPONSE_LINES) {
+                output.append("\n     ... and ").append(lineCount[0] - MAX_RESPONSE_LINES).append(" more line(s).");
+            }
             return output.toString();
 
         } catch (GalathException e) {
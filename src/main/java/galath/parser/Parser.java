@@ -4,12 +4,16 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.regex.Pattern;
 
 import galath.command.AddDeadlineCommand;
 import galath.command.AddEventCommand;
 import galath.command.AddTodoCommand;
+import galath.command.BatchCommand;
+import galath.command.BetweenCommand;
 import galath.command.Command;
 import galath.command.DeleteCommand;
 import galath.command.ExitCommand;
@@ -17,24 +21,35 @@ import galath.command.FindCommand;
 import galath.command.FindOnCommand;
 import galath.command.ListCommand;
 import galath.command.MarkCommand;
+import galath.command.RedoCommand;
+import galath.command.ScrubCommand;
 import galath.command.SortCommand;
+import galath.command.TaskSelection;
+import galath.command.UndoCommand;
 import galath.command.UnmarkCommand;
 import galath.exception.GalathException;
+import galath.task.SortKey;
 
 /**
  * Parses user input commands and converts them into Command objects.
  *
  * Supports the following commands (with aliases):
  * - bye (exit): Exit the program
- * - list (l, ls): List all tasks
+ * - list (l, ls): List all tasks, optionally in another order
  * - todo (t): Add a todo task
  * - deadline (d): Add a deadline task
  * - event (e): Add an event task
  * - mark (m): Mark a task as done
  * - unmark (u): Mark a task as not done
  * - delete (del, rm): Delete a task
+ *   (mark, unmark and delete also take ranges and lists such as "3-400" or "1,5,9",
+ *   "done", "pending", or "find KEYWORD" to act on many tasks at once)
  * - find (f): Find tasks containing keyword
  * - on: Find tasks on a specific date
+ * - between: Find tasks in a range of dates
+ * - scrub: Check the integrity of the data file
+ * - undo: Undo the last change to the list
+ * - redo: Redo the last change that was undone
  */
 public class Parser {
     private static final List<DateTimeFormatter> DATE_TIME_FORMATTERS = Arrays.asList(
@@ -43,6 +58,8 @@ public class Parser {
             DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm") // 2024-12-25T17:00
     );
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE; // yyyy-MM-dd
+    /** Task numbers and ranges separated by commas, e.g. "3-400" or "1, 5, 9". */
+    private static final Pattern TASK_RANGES = Pattern.compile("\\d+\\s*(-\\s*\\d+)?(\\s*,\\s*\\d+\\s*(-\\s*\\d+)?)*");
     /**
      * Parses a user command and returns the appropriate Command object.
      * Supports command aliases for more flexible syntax.
@@ -66,7 +83,7 @@ public class Parser {
             case "bye":
                 return new ExitCommand();
             case "list":
-                return new ListCommand();
+                return parseListCommand(normalizedCommand);
             case "mark":
                 if (!hasArgs) {
                     throw new GalathException("Please specify which task to mark.\n     Example: mark 2 or m 2");
@@ -102,6 +119,11 @@ public class Parser {
                     throw new GalathException("Please specify a date.\n     Example: on 2019-12-02");
                 }
                 return parseOnCommand(normalizedCommand);
+            case "between":
+                if (!hasArgs) {
+                    throw new GalathException("Please specify two dates.\n     Example: between 2019-12-02 2019-12-06");
+                }
+                return parseBetweenCommand(normalizedCommand);
             case "find":
                 if (!hasArgs) {
                     throw new GalathException("Please specify a keyword to search for.\n     Example: find book or f book");
@@ -109,8 +131,14 @@ public class Parser {
                 return parseFindCommand(normalizedCommand);
             case "sort":
                 return parseSortCommand(normalizedCommand);
+            case "scrub":
+                return new ScrubCommand();
+            case "undo":
+                return new UndoCommand();
+            case "redo":
+                return new RedoCommand();
             default:
-                throw new GalathException("I'm sorry, but I don't know what that means :-(\n    Available commands: todo, deadline, event, list, mark, unmark, delete, find, on, sort, bye");
+                throw new GalathException("I'm sorry, but I don't know what that means :-(\n    Available commands: todo, deadline, event, list, mark, unmark, delete, find, on, between, sort, scrub, undo, redo, bye");
         }
     }
 
@@ -128,8 +156,9 @@ public class Parser {
             return command.replaceFirst("^d", "deadline");
         } else if (command.equals("e") || command.startsWith("e ")) {
             return command.replaceFirst("^e", "event");
-        } else if (command.equals("l") || command.equals("ls")) {
-            return "list";
+        } else if (command.equals("l") || command.startsWith("l ")
+                || command.equals("ls") || command.startsWith("ls ")) {
+            return command.replaceFirst("^(ls|l)", "list");
         } else if (command.equals("m") || command.startsWith("m ")) {
             return command.replaceFirst("^m", "mark");
         } else if (command.equals("u") || command.startsWith("u ")) {
@@ -150,6 +179,12 @@ public class Parser {
         if (numberStr.isEmpty()) {
             throw new GalathException("Please specify which task to mark.\n     Example: mark 2");
         }
+        if (numberStr.startsWith("#")) {
+            return MarkCommand.byId(parseTaskId(numberStr, "mark"));
+        }
+        if (isBatch(numberStr)) {
+            return new BatchCommand(BatchCommand.Action.MARK, parseSelection(numberStr, "mark"));
+        }
         try {
             int taskIndex = Integer.parseInt(numberStr) - 1;
             return new MarkCommand(taskIndex);
@@ -163,6 +198,12 @@ public class Parser {
         if (numberStr.isEmpty()) {
             throw new GalathException("Please specify which task to unmark.\n     Example: unmark 2");
         }
+        if (numberStr.startsWith("#")) {
+            return UnmarkCommand.byId(parseTaskId(numberStr, "unmark"));
+        }
+        if (isBatch(numberStr)) {
+            return new BatchCommand(BatchCommand.Action.UNMARK, parseSelection(numberStr, "unmark"));
+        }
         try {
             int taskIndex = Integer.parseInt(numberStr) - 1;
             return new UnmarkCommand(taskIndex);
@@ -176,6 +217,12 @@ public class Parser {
         if (numberStr.isEmpty()) {
             throw new GalathException("Please specify which task to delete.\n     Example: delete 3");
         }
+        if (numberStr.startsWith("#")) {
+            return DeleteCommand.byId(parseTaskId(numberStr, "delete"));
+        }
+        if (isBatch(numberStr)) {
+            return new BatchCommand(BatchCommand.Action.DELETE, parseSelection(numberStr, "delete"));
+        }
         try {
             int taskIndex = Integer.parseInt(numberStr) - 1;
             return new DeleteCommand(taskIndex);
@@ -184,6 +231,82 @@ public class Parser {
         }
     }
 
+    /**
+     * Checks whether the arguments of mark, unmark or delete select more than one task.
+     * Only the predicates and well-formed lists of numbers and ranges count; anything
+     * else, including a negative number, is parsed as a single task number.
+     *
+     * @param args The arguments after the command keyword
+     * @return true for a range, a list, or a predicate
+     */
+    private static boolean isBatch(String args) {
+        return args.equals("done") || args.equals("pending") || args.startsWith("find ")
+                || ((args.contains(",") || args.contains("-")) && TASK_RANGES.matcher(args).matches());
+    }
+
+    /**
+     * Parses the tasks a batch command acts on: "done", "pending", "find KEYWORD", or
+     * comma-separated task numbers and ranges such as "1,5,9" or "3-400".
+     * The ranges are checked against the list only when the command runs.
+     *
+     * @param args The arguments after the command keyword
+     * @param keyword The command keyword, for the example in the error message
+     * @return The selection
+     * @throws GalathException if a number or range is invalid
+     */
+    private static TaskSelection parseSelection(String args, String keyword) throws GalathException {
+        if (args.equals("done") || args.equals("pending")) {
+            return TaskSelection.withStatus(args.equals("done"));
+        }
+        if (args.startsWith("find ")) {
+            return TaskSelection.containing(args.substring(5).trim());
+        }
+        String example = "\n     Example: " + keyword + " 3-5, " + keyword + " 1,5,9 or " + keyword + " done";
+        String[] parts = args.split(",");
+        int[] ranges = new int[parts.length * 2];
+        for (int i = 0; i < parts.length; i++) {
+            String part = parts[i];
+            String[] bounds = part.split("-", -1);
+            int first;
+            int last;
+            try {
+                if (bounds.length > 2) {
+                    throw new NumberFormatException(part);
+                }
+                first = Integer.parseInt(bounds[0].trim());
+                last = bounds.length == 2 ? Integer.parseInt(bounds[1].trim()) : first;
+            } catch (NumberFormatException e) {
+                throw new GalathException("Invalid task numbers: " + part.trim() + example);
+            }
+            if (first < 1 || last < first) {
+                throw new GalathException("Invalid task range: " + part.trim() + example);
+            }
+            ranges[2 * i] = first;
+            ranges[2 * i + 1] = last;
+        }
+        return TaskSelection.of(ranges);
+    }
+
+    /**
+     * Parses a task ID written as '#' followed by the number.
+     *
+     * @param idStr The ID, including the leading '#'
+     * @param keyword The command keyword, for the example in the error message
+     * @return The task ID
+     * @throws GalathException if the ID is not a positive number
+     */
+    private static long parseTaskId(String idStr, String keyword) throws GalathException {
+        try {
+            long taskId = Long.parseLong(idStr.substring(1).trim());
+            if (taskId > 0) {
+                return taskId;
+            }
+        } catch (NumberFormatException e) {
+            // Fall through to the error below
+        }
+        throw new GalathException("Invalid task ID. Please provide a valid ID.\n     Example: " + keyword + " #2");
+    }
+
     private static Command parseTodoCommand(String command) throws GalathException {
         String description = command.substring(5).trim();
         if (description.isEmpty()) {
@@ -265,42 +388,153 @@ public class Parser {
         }
     }
 
+    private static Command parseBetweenCommand(String command) throws GalathException {
+        String[] dateStrs = command.substring(8).trim().split("\\s+");
+        if (dateStrs.length != 2) {
+            throw new GalathException("Please specify two dates.\n     Example: between 2019-12-02 2019-12-06");
+        }
+        try {
+            LocalDate from = LocalDate.parse(dateStrs[0]);
+            LocalDate to = LocalDate.parse(dateStrs[1]);
+            if (to.isBefore(from)) {
+                throw new GalathException("The second date cannot be before the first.\n     Example: between 2019-12-02 2019-12-06");
+            }
+            return new BetweenCommand(from, to);
+        } catch (DateTimeParseException e) {
+            throw new GalathException("Invalid date format. Please use: yyyy-MM-dd\n     Example: between 2019-12-02 2019-12-06");
+        }
+    }
+
     private static Command parseFindCommand(String command) throws GalathException {
         String keyword = command.substring(5).trim();
         if (keyword.isEmpty()) {
             throw new GalathException("Please specify a keyword to search for.\n     Example: find book");
         }
+        if (keyword.equals("/w") || keyword.startsWith("/w ")) {
+            String words = keyword.substring(2).trim();
+            if (words.isEmpty()) {
+                throw new GalathException("Please specify the words to search for.\n     Example: find /w book");
+            }
+            return new FindCommand(words, true);
+        }
         return new FindCommand(keyword);
     }
 
+    /**
+     * Parses a list command. "list" alone shows the list as it is; "list done" and
+     * "list pending" show only tasks with that status; "list name", "list deadline",
+     * "list event", "list date" or "list type" shows it in that order without sorting
+     * the list itself. Any of these can end with "--page N" and "--size M" to show
+     * one page of M tasks (50 by default).
+     *
+     * @param command The full list command string
+     * @return The appropriate ListCommand
+     * @throws GalathException if the view is not a sort key or a page option is invalid
+     */
+    private static Command parseListCommand(String command) throws GalathException {
+        String option = command.substring(4).trim().toLowerCase();
+        int page = 0;
+        int pageSize = 0;
+        int pageStart = option.indexOf("--");
+        if (pageStart >= 0) {
+            String[] words = option.substring(pageStart).split("\\s+");
+            for (int i = 0; i < words.length; i += 2) {
+                int value = i + 1 < words.length ? parsePageOption(words[i + 1]) : 0;
+                if (words[i].equals("--page") && value > 0) {
+                    page = value;
+                } else if (words[i].equals("--size") && value > 0) {
+                    pageSize = value;
+                } else {
+                    throw new GalathException("Invalid page option. Use --page N and --size M with positive numbers.\n"
+                            + "     Example: list --page 3 --size 50");
+                }
+            }
+            option = option.substring(0, pageStart).trim();
+        }
+
+        ListCommand listCommand;
+        if (option.isEmpty()) {
+            listCommand = new ListCommand();
+        } else if (option.equals("done") || option.equals("pending")) {
+            listCommand = ListCommand.withStatus(option.equals("done"));
+        } else {
+            SortKey.Field view = parseSortField(option);
+            if (view == null) {
+                throw new GalathException("Invalid list view. Use list, list done, list pending,\n"
+                        + "     or list name, deadline, event, date or type.");
+            }
+            listCommand = new ListCommand(view);
+        }
+        if (page == 0 && pageSize == 0) {
+            return listCommand;
+        }
+        return listCommand.withPage(Math.max(page, 1), pageSize > 0 ? pageSize : ListCommand.DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * Parses the number after a page option.
+     *
+     * @param value The number
+     * @return The number, or 0 if it is not a positive number
+     */
+    private static int parsePageOption(String value) {
+        try {
+            return Math.max(0, Integer.parseInt(value));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
     /**
      * Parses a sort command and returns the appropriate SortCommand.
-     * Supported options: sort name, sort deadline, sort event, sort type.
+     * Keys are separated by commas, each optionally followed by "asc" or "desc",
+     * for example: sort deadline,name or sort type,date desc.
      *
      * @param command The full sort command string
      * @return The appropriate SortCommand
-     * @throws GalathException if the sort option is missing or invalid
+     * @throws GalathException if a sort key is missing or invalid
      */
     private static Command parseSortCommand(String command) throws GalathException {
-        String option = command.substring(4).trim().toLowerCase();
+        String options = command.substring(4).trim().toLowerCase();
+        ArrayList<SortKey> keys = new ArrayList<>();
 
-        switch (option) {
-            case "name":
-                return new SortCommand(SortCommand.SortType.NAME);
-            case "deadline":
-                return new SortCommand(SortCommand.SortType.DEADLINE);
-            case "event":
-                return new SortCommand(SortCommand.SortType.EVENT);
-            case "type":
-                return new SortCommand(SortCommand.SortType.TYPE);
-            default:
+        for (String option : options.split(",")) {
+            String[] parts = option.trim().split("\\s+");
+            boolean isDescending = parts.length == 2 && parts[1].equals("desc");
+            boolean isValidDirection = parts.length == 1
+                    || (parts.length == 2 && (isDescending || parts[1].equals("asc")));
+            SortKey.Field field = parseSortField(parts[0]);
+            if (field == null || !isValidDirection) {
                 throw new GalathException(
                         "Invalid sort option. Available options:\n"
                                 + "     sort name     - sort all tasks alphabetically\n"
                                 + "     sort deadline - sort deadlines chronologically\n"
                                 + "     sort event    - sort events chronologically\n"
-                                + "     sort type     - group by type (Todos, Deadlines, Events)"
+                                + "     sort date     - sort deadlines and events chronologically\n"
+                                + "     sort type     - group by type (Todos, Deadlines, Events)\n"
+                                + "     Combine keys with commas and add desc to reverse one,\n"
+                                + "     e.g. sort type,date desc"
                 );
+            }
+            keys.add(new SortKey(field, isDescending));
+        }
+        return new SortCommand(keys);
+    }
+
+    private static SortKey.Field parseSortField(String name) {
+        switch (name) {
+            case "name":
+                return SortKey.Field.NAME;
+            case "type":
+                return SortKey.Field.TYPE;
+            case "deadline":
+                return SortKey.Field.DEADLINE;
+            case "event":
+                return SortKey.Field.EVENT;
+            case "date":
+                return SortKey.Field.DATE;
+            default:
+                return null;
         }
     }
 
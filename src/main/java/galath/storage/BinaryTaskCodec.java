@@ -0,0 +1,316 @@
+package galath.storage;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import galath.task.Deadline;
+import galath.task.Event;
+import galath.task.Task;
+import galath.task.Todo;
+
+/**
+ * Reads and writes the compact binary data file format.
+ *
+ * The file starts with the magic bytes "GLTH" and a version byte. Every record
+ * then holds a type byte ('T', 'D' or 'E'), a flags byte (bit 0: done, bit 1:
+ * timestamps carry sub-minute parts), the timestamps as zigzag varints of epoch
+ * minutes, each followed by a varint of nanoseconds into the minute if bit 1 is
+ * set, the description as a varint length and UTF-8 bytes, and finally, from
+ * version 2 on, the task ID as a varint (0 for none). Version 1 files are still read.
+ * Timestamps are interpreted in UTC, since tasks carry no time zone.
+ *
+ * Files are written to a temporary file that then replaces the data file, so a crash
+ * never leaves a half-written one. A file cut short anyway, e.g. by a disk filling up,
+ * still yields every task before the damage.
+ */
+class BinaryTaskCodec {
+    private static final byte[] MAGIC = {'G', 'L', 'T', 'H'};
+    private static final int VERSION = 2;
+    private static final int FLAG_DONE = 1;
+    private static final int FLAG_PRECISE = 2;
+    private static final long NANOS_PER_MINUTE = 60_000_000_000L;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private byte[] buffer = new byte[BUFFER_SIZE];
+    private int length;
+
+    /**
+     * Returns whether the given file starts with the binary format header.
+     *
+     * @param path The data file
+     * @return true if the file is in the binary format
+     * @throws IOException if unable to read the file
+     */
+    static boolean isBinary(Path path) throws IOException {
+        try (InputStream in = Files.newInputStream(path)) {
+            byte[] header = in.readNBytes(MAGIC.length);
+            return Arrays.equals(header, MAGIC);
+        }
+    }
+
+    /**
+     * Reads every task from a binary data file, in file order.
+     * If the records end in a torn or malformed one, the tasks before it are returned
+     * and the rest is dropped with a warning.
+     *
+     * @param path The data file
+     * @return The tasks
+     * @throws IOException if unable to read the file or its header is not a supported one
+     */
+    static ArrayList<Task> read(Path path) throws IOException {
+        ArrayList<Task> tasks = new ArrayList<>();
+        try (Reader reader = new Reader(Files.newInputStream(path), Files.size(path))) {
+            for (byte b : MAGIC) {
+                if (reader.readByte() != b) {
+                    throw new IOException("Not a binary data file");
+                }
+            }
+            int version = reader.readByte();
+            if (version < 1 || version > VERSION) {
+                throw new IOException("Unsupported binary data file version " + version);
+            }
+            boolean hasIds = version >= 2;
+            while (reader.hasMore()) {
+                try {
+                    tasks.add(readTask(reader, hasIds));
+                } catch (EOFException e) {
+                    System.out.println("Warning: Discarding an incomplete record at the end of the data file.");
+                    break;
+                } catch (IOException | DateTimeException e) {
+                    System.out.println("Warning: Discarding corrupted data at the end of the data file, after "
+                            + tasks.size() + " task(s).");
+                    break;
+                }
+            }
+        }
+        return tasks;
+    }
+
+    /**
+     * Writes the tasks to a binary data file, replacing its contents.
+     * The tasks go to a temporary file first, which is then moved over the data file,
+     * atomically where the file system allows it.
+     *
+     * @param path The data file
+     * @param tasks The tasks to write
+     * @throws IOException if unable to write the file
+     */
+    static void write(Path path, List<Task> tasks) throws IOException {
+        Path tempPath = path.resolveSibling(path.getFileName() + TEMP_SUFFIX);
+        BinaryTaskCodec codec = new BinaryTaskCodec();
+        try (OutputStream out = Files.newOutputStream(tempPath)) {
+            out.write(MAGIC);
+            out.write(VERSION);
+            for (Task task : tasks) {
+                codec.encode(task);
+                if (codec.length >= BUFFER_SIZE) {
+                    out.write(codec.buffer, 0, codec.length);
+                    codec.length = 0;
+                }
+            }
+            out.write(codec.buffer, 0, codec.length);
+        }
+        try {
+            Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static Task readTask(Reader reader, boolean hasIds) throws IOException {
+        int type = reader.readByte();
+        int flags = reader.readByte();
+        boolean isPrecise = (flags & FLAG_PRECISE) != 0;
+
+        LocalDateTime first = null;
+        LocalDateTime second = null;
+        if (type == 'D' || type == 'E') {
+            first = readDateTime(reader, isPrecise);
+        }
+        if (type == 'E') {
+            second = readDateTime(reader, isPrecise);
+        }
+        long descriptionLength = reader.readVarLong();
+        if (descriptionLength > reader.fileSize) {
+            throw new IOException("Malformed description length in binary data file");
+        }
+        String description = new String(reader.readBytes((int) descriptionLength), StandardCharsets.UTF_8);
+
+        Task task;
+        switch (type) {
+            case 'T':
+                task = new Todo(description);
+                break;
+            case 'D':
+                task = new Deadline(description, first);
+                break;
+            case 'E':
+                task = new Event(description, first, second);
+                break;
+            default:
+                throw new IOException("Unknown task type in binary data file");
+        }
+        if ((flags & FLAG_DONE) != 0) {
+            task.markAsDone();
+        }
+        long id = hasIds ? reader.readVarLong() : 0;
+        if (id > 0) {
+            task.setId(id);
+        }
+        return task;
+    }
+
+    private static LocalDateTime readDateTime(Reader reader, boolean isPrecise) throws IOException {
+        long zigzag = reader.readVarLong();
+        long minutes = (zigzag >>> 1) ^ -(zigzag & 1);
+        long nanos = isPrecise ? reader.readVarLong() : 0;
+        return LocalDateTime.ofEpochSecond(minutes * 60 + nanos / 1_000_000_000L,
+                (int) (nanos % 1_000_000_000L), ZoneOffset.UTC);
+    }
+
+    private void encode(Task task) {
+        LocalDateTime first = null;
+        LocalDateTime second = null;
+        int type;
+        if (task instanceof Todo) {
+            type = 'T';
+        } else if (task instanceof Deadline) {
+            type = 'D';
+            first = ((Deadline) task).getBy();
+        } else if (task instanceof Event) {
+            type = 'E';
+            first = ((Event) task).getFrom();
+            second = ((Event) task).getTo();
+        } else {
+            throw new IllegalArgumentException("Unknown task type");
+        }
+
+        boolean isPrecise = hasSubMinutePart(first) || hasSubMinutePart(second);
+        int flags = (task.getIsDone() ? FLAG_DONE : 0) | (isPrecise ? FLAG_PRECISE : 0);
+        byte[] description = task.getDescription().getBytes(StandardCharsets.UTF_8);
+
+        ensureCapacity(2 + 2 * 20 + 5 + description.length + 10);
+        buffer[length++] = (byte) type;
+        buffer[length++] = (byte) flags;
+        if (first != null) {
+            writeDateTime(first, isPrecise);
+        }
+        if (second != null) {
+            writeDateTime(second, isPrecise);
+        }
+        writeVarLong(description.length);
+        System.arraycopy(description, 0, buffer, length, description.length);
+        length += description.length;
+        writeVarLong(task.getId());
+    }
+
+    private static boolean hasSubMinutePart(LocalDateTime dateTime) {
+        return dateTime != null && (dateTime.getSecond() != 0 || dateTime.getNano() != 0);
+    }
+
+    private void writeDateTime(LocalDateTime dateTime, boolean isPrecise) {
+        long seconds = dateTime.toEpochSecond(ZoneOffset.UTC);
+        long minutes = Math.floorDiv(seconds, 60);
+        writeVarLong((minutes << 1) ^ (minutes >> 63));
+        if (isPrecise) {
+            writeVarLong(Math.floorMod(seconds, 60) * 1_000_000_000L + dateTime.getNano());
+        }
+    }
+
+    private void writeVarLong(long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer[length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[length++] = (byte) value;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (length + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + extra));
+        }
+    }
+
+    /**
+     * Reads bytes and varints from a stream through its own buffer.
+     */
+    private static class Reader implements AutoCloseable {
+        private final InputStream in;
+        /** The size of the file, which no length read from it can exceed. */
+        private final long fileSize;
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private int position;
+        private int limit;
+
+        Reader(InputStream in, long fileSize) {
+            this.in = in;
+            this.fileSize = fileSize;
+        }
+
+        boolean hasMore() throws IOException {
+            return fill();
+        }
+
+        int readByte() throws IOException {
+            if (!fill()) {
+                throw new EOFException("Binary data file ends in the middle of a record");
+            }
+            return buffer[position++] & 0xFF;
+        }
+
+        long readVarLong() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed varint in binary data file");
+        }
+
+        byte[] readBytes(int count) throws IOException {
+            byte[] bytes = new byte[count];
+            int copied = 0;
+            while (copied < count) {
+                if (!fill()) {
+                    throw new EOFException("Binary data file ends in the middle of a record");
+                }
+                int chunk = Math.min(count - copied, limit - position);
+                System.arraycopy(buffer, position, bytes, copied, chunk);
+                position += chunk;
+                copied += chunk;
+            }
+            return bytes;
+        }
+
+        private boolean fill() throws IOException {
+            if (position < limit) {
+                return true;
+            }
+            limit = in.read(buffer);
+            position = 0;
+            return limit > 0;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
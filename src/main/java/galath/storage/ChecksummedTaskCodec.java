@@ -0,0 +1,266 @@
+package galath.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+import galath.task.Task;
+
+/**
+ * Reads and writes the checksummed text data file format.
+ *
+ * The file starts with the header line {@value #HEADER}. Every record is a task
+ * line prefixed with the CRC32C of its bytes as eight hex digits and a space.
+ * After every {@value #SYNC_INTERVAL} records a sync line "#sync N" records how
+ * many records precede it, so a scrub notices lines that went missing entirely.
+ *
+ * Full writes go to a temporary file that is then moved over the data file, so a
+ * crash during a rewrite leaves the previous file whole. A write torn by a crash
+ * can then only damage the end of the file, so on load a failing or unterminated
+ * last record is cut off. A failing record anywhere else is corruption and is
+ * skipped with a warning.
+ */
+class ChecksummedTaskCodec {
+    static final String HEADER = "#galath-crc32c 1";
+    private static final String SYNC_PREFIX = "#sync ";
+    private static final int SYNC_INTERVAL = 1024;
+    private static final int PREFIX_LENGTH = 9;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int TAIL_SCAN_SIZE = 64 * 1024;
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    /**
+     * Returns whether the given file starts with the checksummed format header.
+     *
+     * @param path The data file
+     * @return true if the file is in the checksummed format
+     * @throws IOException if unable to read the file
+     */
+    static boolean isChecksummed(Path path) throws IOException {
+        byte[] header = HEADER.getBytes(StandardCharsets.US_ASCII);
+        try (InputStream in = Files.newInputStream(path)) {
+            return Arrays.equals(in.readNBytes(header.length), header);
+        }
+    }
+
+    /**
+     * Writes every task to a checksummed data file, replacing its contents.
+     * The tasks go to a temporary file first, which is then moved over the data file,
+     * atomically where the file system allows it.
+     *
+     * @param path The data file
+     * @param tasks The tasks to write
+     * @throws IOException if unable to write the file
+     */
+    static void write(Path path, List<Task> tasks) throws IOException {
+        Path tempPath = path.resolveSibling(path.getFileName() + TEMP_SUFFIX);
+        TaskLineCodec codec = new TaskLineCodec();
+        CRC32C checksum = new CRC32C();
+        try (OutputStream out = Files.newOutputStream(tempPath)) {
+            codec.appendAscii(HEADER);
+            codec.appendLineSeparator();
+            for (int i = 0; i < tasks.size(); i++) {
+                if (i > 0 && i % SYNC_INTERVAL == 0) {
+                    codec.appendAscii(SYNC_PREFIX + i);
+                    codec.appendLineSeparator();
+                }
+                codec.encodeChecksummed(tasks.get(i), checksum);
+                codec.appendLineSeparator();
+                if (codec.length() >= BUFFER_SIZE) {
+                    codec.writeTo(out);
+                }
+            }
+            codec.writeTo(out);
+        }
+        try {
+            Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Verifies the checksum of a record line.
+     *
+     * @param bytes The buffer holding the line
+     * @param start The first byte of the line
+     * @param end The byte after the line, without line separator
+     * @param checksum A checksum instance to reuse
+     * @return The index where the task starts, or -1 if the checksum does not match
+     */
+    static int verify(byte[] bytes, int start, int end, CRC32C checksum) {
+        if (end - start < PREFIX_LENGTH || bytes[start + PREFIX_LENGTH - 1] != ' ') {
+            return -1;
+        }
+        long expected = 0;
+        for (int i = start; i < start + PREFIX_LENGTH - 1; i++) {
+            int digit = Character.digit(bytes[i], 16);
+            if (digit < 0) {
+                return -1;
+            }
+            expected = (expected << 4) | digit;
+        }
+        checksum.reset();
+        checksum.update(bytes, start + PREFIX_LENGTH, end - start - PREFIX_LENGTH);
+        return checksum.getValue() == expected ? start + PREFIX_LENGTH : -1;
+    }
+
+    /**
+     * Cuts off a record torn by a crash at the end of the file: a last line whose
+     * checksum does not match, whether or not it is terminated.
+     *
+     * @param path The data file
+     * @return true if anything was cut off
+     * @throws IOException if unable to read or truncate the file
+     */
+    static boolean repairTail(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            int windowSize = (int) Math.min(size, TAIL_SCAN_SIZE);
+            long windowStart = size - windowSize;
+            byte[] window = new byte[windowSize];
+            ByteBuffer buffer = ByteBuffer.wrap(window);
+            while (buffer.hasRemaining() && channel.read(buffer, windowStart + buffer.position()) >= 0) {
+                // Keep reading until the window is full
+            }
+
+            int lastNewline = lastIndexOf(window, (byte) '\n', windowSize);
+            boolean isTerminated = windowSize > 0 && lastNewline == windowSize - 1;
+            int lineStart = (isTerminated ? lastIndexOf(window, (byte) '\n', lastNewline) : lastNewline) + 1;
+            int lineEnd = isTerminated ? lastNewline : windowSize;
+            if (lineEnd > lineStart && window[lineEnd - 1] == '\r') {
+                lineEnd--;
+            }
+            if (lineStart == 0 && windowStart > 0) {
+                // The last line is longer than the window, leave it to the loader
+                return false;
+            }
+            if (lineEnd == lineStart || window[lineStart] == '#'
+                    || verify(window, lineStart, lineEnd, new CRC32C()) >= 0) {
+                return false;
+            }
+            channel.truncate(windowStart + lineStart);
+            System.out.println("Warning: Discarding an incomplete record at the end of the data file.");
+            return true;
+        }
+    }
+
+    /**
+     * Checks every checksum and sync line of a checksummed data file without parsing any task.
+     *
+     * @param path The data file
+     * @return The report listing every problem found
+     * @throws IOException if unable to read the file
+     */
+    static ScrubReport scrub(Path path) throws IOException {
+        List<String> problems = new ArrayList<>();
+        CRC32C checksum = new CRC32C();
+        int records = 0;
+        int lineNumber = 0;
+
+        try (InputStream in = Files.newInputStream(path)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int length = 0;
+            int read;
+            boolean isEndOfFile = false;
+            while (!isEndOfFile) {
+                read = in.read(buffer, length, buffer.length - length);
+                if (read < 0) {
+                    isEndOfFile = true;
+                } else {
+                    length += read;
+                }
+
+                int lineStart = 0;
+                while (true) {
+                    int newline = indexOf(buffer, (byte) '\n', lineStart, length);
+                    if (newline < 0 && !(isEndOfFile && lineStart < length)) {
+                        break;
+                    }
+                    int next = newline < 0 ? length : newline + 1;
+                    int lineEnd = newline < 0 ? length : newline;
+                    if (lineEnd > lineStart && buffer[lineEnd - 1] == '\r') {
+                        lineEnd--;
+                    }
+                    lineNumber++;
+
+                    if (lineNumber == 1) {
+                        // Header line, checked by isChecksummed
+                    } else if (lineEnd > lineStart && buffer[lineStart] == '#') {
+                        String line = new String(buffer, lineStart, lineEnd - lineStart, StandardCharsets.US_ASCII);
+                        checkSyncLine(line, records, lineNumber, problems);
+                    } else if (lineEnd > lineStart) {
+                        records++;
+                        if (verify(buffer, lineStart, lineEnd, checksum) < 0) {
+                            problems.add("line " + lineNumber + ": checksum does not match");
+                        }
+                    }
+                    lineStart = next;
+                }
+
+                // Keep the partial last line for the next read, growing the buffer for very long lines
+                length -= lineStart;
+                System.arraycopy(buffer, lineStart, buffer, 0, length);
+                if (length == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+            }
+        }
+        return new ScrubReport(true, records, problems);
+    }
+
+    /**
+     * Checks that a sync line matches the number of records read before it.
+     */
+    private static void checkSyncLine(String line, int records, int lineNumber, List<String> problems) {
+        if (!line.startsWith(SYNC_PREFIX)) {
+            problems.add("line " + lineNumber + ": unknown marker");
+            return;
+        }
+        try {
+            int expected = Integer.parseInt(line.substring(SYNC_PREFIX.length()).trim());
+            if (expected != records) {
+                problems.add("line " + lineNumber + ": expected " + expected + " records before this point, found "
+                        + records);
+            }
+        } catch (NumberFormatException e) {
+            problems.add("line " + lineNumber + ": corrupted sync marker");
+        }
+    }
+
+    /**
+     * Returns the index of the first occurrence of a byte in a range, or -1 if there is none.
+     */
+    private static int indexOf(byte[] bytes, byte b, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (bytes[i] == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the index of the last occurrence of a byte before the given index, or -1 if there is none.
+     */
+    private static int lastIndexOf(byte[] bytes, byte b, int end) {
+        for (int i = end - 1; i >= 0; i--) {
+            if (bytes[i] == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,233 @@
+package galath.storage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.zip.CRC32C;
+
+import galath.task.Task;
+
+/**
+ * Loads a data file in large chunks split at line boundaries and parses the chunks in parallel.
+ *
+ * Each chunk is read with a positional read into its own buffer, so the whole
+ * file never sits on the heap as a list of lines. The parsed tasks of every
+ * chunk are put back together in file order. Files smaller than one chunk are
+ * parsed on the caller's thread.
+ *
+ * Checksummed files are verified record by record as each chunk is parsed.
+ *
+ * Chunks are read rather than memory-mapped because a mapped file cannot be
+ * rewritten or replaced on Windows until the mapping is garbage collected.
+ */
+class ChunkedTaskLoader {
+    private static final int CHUNK_SIZE = 1024 * 1024;
+    private static final int BOUNDARY_SCAN_SIZE = 8 * 1024;
+
+    /**
+     * Loads every task in the given file, in file order.
+     *
+     * @param path The data file
+     * @return The parsed tasks; invalid lines are skipped
+     * @throws IOException if unable to read the file
+     */
+    static ArrayList<Task> load(Path path) throws IOException {
+        return load(path, false);
+    }
+
+    /**
+     * Loads every task in the given file, in file order, verifying record checksums if asked to.
+     *
+     * @param path The data file
+     * @param isChecksummed Whether the file is in the checksummed format
+     * @return The parsed tasks; invalid lines and records failing their checksum are skipped
+     * @throws IOException if unable to read the file
+     */
+    static ArrayList<Task> load(Path path, boolean isChecksummed) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long[] boundaries = findChunkBoundaries(channel);
+            int chunkCount = boundaries.length - 1;
+
+            // One slot per chunk, filled in by whichever thread parses it
+            List<List<Task>> results = new ArrayList<>(Collections.nCopies(chunkCount, null));
+            if (chunkCount == 1) {
+                results.set(0, parseChunk(readChunk(channel, boundaries[0], boundaries[1]), isChecksummed));
+            } else if (chunkCount > 1) {
+                try {
+                    ForkJoinPool.commonPool().invoke(new ChunkTask(channel, boundaries, results, isChecksummed, 0, chunkCount));
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                }
+            }
+
+            int total = 0;
+            for (List<Task> result : results) {
+                total += result.size();
+            }
+            ArrayList<Task> tasks = new ArrayList<>(total);
+            for (List<Task> result : results) {
+                tasks.addAll(result);
+            }
+            return tasks;
+        }
+    }
+
+    /**
+     * Splits the file into chunks of roughly {@link #CHUNK_SIZE} bytes, each ending right after a newline.
+     *
+     * @param channel The open data file
+     * @return The chunk boundaries, starting with 0 and ending with the file size
+     * @throws IOException if unable to read the file
+     */
+    private static long[] findChunkBoundaries(FileChannel channel) throws IOException {
+        long size = channel.size();
+        ArrayList<Long> boundaries = new ArrayList<>();
+        boundaries.add(0L);
+        long start = 0;
+        ByteBuffer scan = ByteBuffer.allocate(BOUNDARY_SCAN_SIZE);
+        while (start < size) {
+            long end = Math.min(start + CHUNK_SIZE, size);
+            while (end < size) {
+                scan.clear();
+                int read = channel.read(scan, end);
+                int newline = -1;
+                for (int i = 0; i < read; i++) {
+                    if (scan.get(i) == '\n') {
+                        newline = i;
+                        break;
+                    }
+                }
+                if (newline >= 0) {
+                    end += newline + 1;
+                    break;
+                }
+                end = read < 0 ? size : end + read;
+            }
+            end = Math.min(end, size);
+            boundaries.add(end);
+            start = end;
+        }
+
+        long[] result = new long[boundaries.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = boundaries.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Reads the bytes between two boundaries with positional reads, which are safe to run concurrently.
+     *
+     * @param channel The open data file
+     * @param start The first byte of the chunk
+     * @param end The byte after the chunk
+     * @return The chunk contents
+     * @throws IOException if unable to read the file
+     */
+    private static byte[] readChunk(FileChannel channel, long start, long end) throws IOException {
+        byte[] bytes = new byte[(int) (end - start)];
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, start + buffer.position());
+            if (read < 0) {
+                throw new IOException("Data file shrank while loading");
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Parses every line of a chunk into tasks, skipping invalid lines.
+     *
+     * @param bytes The chunk contents, ending at a line boundary
+     * @param isChecksummed Whether lines are checksummed records, with marker lines starting with '#'
+     * @return The parsed tasks, in order
+     */
+    private static List<Task> parseChunk(byte[] bytes, boolean isChecksummed) {
+        List<Task> tasks = new ArrayList<>();
+        CRC32C checksum = isChecksummed ? new CRC32C() : null;
+        int lineStart = 0;
+        while (lineStart < bytes.length) {
+            int lineEnd = lineStart;
+            while (lineEnd < bytes.length && bytes[lineEnd] != '\n') {
+                lineEnd++;
+            }
+            int next = lineEnd + 1;
+            if (lineEnd > lineStart && bytes[lineEnd - 1] == '\r') {
+                lineEnd--;
+            }
+
+            if (isChecksummed && lineEnd > lineStart && bytes[lineStart] == '#') {
+                lineStart = next;
+                continue;
+            }
+            int taskStart = isChecksummed && lineEnd > lineStart
+                    ? ChecksummedTaskCodec.verify(bytes, lineStart, lineEnd, checksum)
+                    : lineStart;
+
+            try {
+                if (taskStart < 0) {
+                    throw new IllegalArgumentException("Checksum does not match");
+                }
+                Task task = TaskLineCodec.decode(bytes, taskStart, lineEnd);
+                if (task != null) {
+                    tasks.add(task);
+                }
+            } catch (Exception e) {
+                // Skip corrupted lines
+                String line = new String(bytes, lineStart, lineEnd - lineStart, StandardCharsets.UTF_8);
+                System.out.println("Warning: Skipping corrupted data: " + line);
+            }
+            lineStart = next;
+        }
+        return tasks;
+    }
+
+    /**
+     * Reads and parses a range of chunks, splitting the range in half until one chunk is left.
+     */
+    private static class ChunkTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final FileChannel channel;
+        private final long[] boundaries;
+        private final List<List<Task>> results;
+        private final boolean isChecksummed;
+        private final int from;
+        private final int to;
+
+        ChunkTask(FileChannel channel, long[] boundaries, List<List<Task>> results, boolean isChecksummed,
+                int from, int to) {
+            this.channel = channel;
+            this.boundaries = boundaries;
+            this.results = results;
+            this.isChecksummed = isChecksummed;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                try {
+                    results.set(from, parseChunk(readChunk(channel, boundaries[from], boundaries[to]), isChecksummed));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new ChunkTask(channel, boundaries, results, isChecksummed, from, middle),
+                    new ChunkTask(channel, boundaries, results, isChecksummed, middle, to));
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package galath.storage;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Manages the append-only journal files that sit next to the data file.
+ *
+ * New records go to the active journal. During compaction the active journal is
+ * rotated aside, so that records appended while the snapshot is being written
+ * land in a fresh active journal.
+ */
+class Journal {
+    private static final String ACTIVE_SUFFIX = ".journal";
+    private static final String ROTATED_SUFFIX = ".journal.old";
+
+    private final Path activePath;
+    private final Path rotatedPath;
+    private BufferedWriter writer;
+    private int recordCount;
+    private long byteCount;
+
+    /**
+     * Creates a Journal for the given data file.
+     *
+     * @param filePath The path to the data file
+     */
+    Journal(String filePath) {
+        this.activePath = Paths.get(filePath + ACTIVE_SUFFIX);
+        this.rotatedPath = Paths.get(filePath + ROTATED_SUFFIX);
+    }
+
+    /**
+     * Appends a single record to the active journal and flushes it.
+     *
+     * @param record The record to append, without line separator
+     * @throws IOException if unable to write to the journal
+     */
+    void append(String record) throws IOException {
+        if (writer == null) {
+            writer = Files.newBufferedWriter(activePath, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+        writer.write(record);
+        writer.write(System.lineSeparator());
+        writer.flush();
+        recordCount++;
+        byteCount += record.length() + System.lineSeparator().length();
+    }
+
+    /**
+     * Reads every record not yet folded into the data file: the rotated journal
+     * first, if present, then the active journal.
+     *
+     * @return The records in the order they were appended
+     * @throws IOException if unable to read a journal file
+     */
+    List<String> readRecords() throws IOException {
+        List<String> records = new ArrayList<>();
+        if (Files.exists(rotatedPath)) {
+            records.addAll(Files.readAllLines(rotatedPath, StandardCharsets.UTF_8));
+        }
+        if (Files.exists(activePath)) {
+            List<String> active = Files.readAllLines(activePath, StandardCharsets.UTF_8);
+            records.addAll(active);
+            recordCount = active.size();
+            byteCount = Files.size(activePath);
+        }
+        return records;
+    }
+
+    /**
+     * Moves the active journal aside so that a snapshot can absorb its records.
+     * If a rotated journal is still present from an interrupted compaction, the
+     * active records are appended to it instead, keeping the record order.
+     *
+     * @throws IOException if unable to move or copy the journal
+     */
+    void rotate() throws IOException {
+        close();
+        if (Files.exists(activePath)) {
+            if (Files.exists(rotatedPath)) {
+                Files.write(rotatedPath, Files.readAllBytes(activePath), StandardOpenOption.APPEND);
+                Files.delete(activePath);
+            } else {
+                Files.move(activePath, rotatedPath);
+            }
+        }
+        recordCount = 0;
+        byteCount = 0;
+    }
+
+    /**
+     * Deletes the rotated journal once a snapshot holding its records is durable.
+     *
+     * @throws IOException if unable to delete the file
+     */
+    void deleteRotated() throws IOException {
+        Files.deleteIfExists(rotatedPath);
+    }
+
+    /**
+     * Returns whether a rotated journal exists, i.e. a compaction has not finished.
+     *
+     * @return true if the rotated journal exists
+     */
+    boolean hasRotated() {
+        return Files.exists(rotatedPath);
+    }
+
+    /**
+     * Returns the number of records in the active journal.
+     *
+     * @return The record count
+     */
+    int getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * Returns the approximate size of the active journal in bytes.
+     *
+     * @return The size in bytes
+     */
+    long getByteCount() {
+        return byteCount;
+    }
+
+    /**
+     * Closes the journal writer, if open.
+     *
+     * @throws IOException if unable to close the writer
+     */
+    private void close() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package galath.storage;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Represents the result of checking the integrity of the data file.
+ */
+public class ScrubReport {
+    private final boolean isChecksummed;
+    private final int recordCount;
+    private final List<String> problems;
+
+    /**
+     * Creates a scrub report.
+     *
+     * @param isChecksummed Whether the data file carries checksums at all
+     * @param recordCount The number of records checked
+     * @param problems A description of every problem found
+     */
+    ScrubReport(boolean isChecksummed, int recordCount, List<String> problems) {
+        this.isChecksummed = isChecksummed;
+        this.recordCount = recordCount;
+        this.problems = problems;
+    }
+
+    /**
+     * Returns whether the data file carries checksums. Files without them cannot be checked.
+     *
+     * @return true if the data file is in the checksummed format
+     */
+    public boolean isChecksummed() {
+        return isChecksummed;
+    }
+
+    /**
+     * Returns the number of records checked.
+     *
+     * @return The record count
+     */
+    public int getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * Returns a description of every problem found, in file order.
+     *
+     * @return The unmodifiable list of problems
+     */
+    public List<String> getProblems() {
+        return Collections.unmodifiableList(problems);
+    }
+}
@@ -0,0 +1,292 @@
+package galath.storage;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Supplier;
+
+import galath.task.ChangeSet;
+import galath.task.Deadline;
+import galath.task.Event;
+import galath.task.Task;
+
+/**
+ * Keeps tasks in a directory of shard files: one for todos, and one per month for
+ * deadlines and events, by the month of their due date or start.
+ *
+ * Each line holds an order key followed by the task in the text format, and
+ * loading merges the shards by order key to restore the list order. The tasks of
+ * every shard are kept in memory by order key, so a change only touches the shards
+ * of the changed tasks and their rewrite costs nothing for the rest of the list.
+ * A manifest lists the shards; it is written once the shards are in place, so it
+ * marks the directory as complete, and rewritten only when a shard comes or goes.
+ */
+class ShardStore {
+    private static final String TODO_SHARD = "todo";
+    private static final String SHARD_EXTENSION = ".txt";
+    private static final String MANIFEST_FILE = "manifest";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final Path directory;
+    private final Path manifestPath;
+    private final IdentityHashMap<Task, Long> orderKeys = new IdentityHashMap<>();
+    /** The tasks of every shard, by order key. */
+    private final HashMap<String, TreeMap<Long, Task>> shards = new HashMap<>();
+    /** The shards the manifest on disk lists. */
+    private final TreeSet<String> manifest = new TreeSet<>();
+    private long nextOrderKey;
+
+    /**
+     * Creates a shard store in a directory next to the given data file.
+     *
+     * @param filePath The path to the data file
+     */
+    ShardStore(String filePath) {
+        this.directory = Paths.get(filePath + ".shards");
+        this.manifestPath = directory.resolve(MANIFEST_FILE);
+    }
+
+    /**
+     * Returns whether the shard directory was already initialized.
+     *
+     * @return true if the manifest exists
+     */
+    boolean exists() {
+        return Files.exists(manifestPath);
+    }
+
+    /**
+     * Loads every shard and merges them back into list order.
+     * The shards are found by listing the directory, so a crash between writing a
+     * shard and the manifest loses nothing; the manifest is brought up to date with
+     * the next change to the set of shards.
+     *
+     * @return The tasks in list order
+     * @throws IOException if unable to read a shard
+     */
+    ArrayList<Task> load() throws IOException {
+        ArrayList<Task> tasks = new ArrayList<>();
+        ArrayList<Long> keys = new ArrayList<>();
+        orderKeys.clear();
+        shards.clear();
+        manifest.clear();
+
+        try (DirectoryStream<Path> shardPaths = Files.newDirectoryStream(directory, "*" + SHARD_EXTENSION)) {
+            for (Path shardPath : shardPaths) {
+                TreeMap<Long, Task> shard = new TreeMap<>();
+                readShard(shardPath, shard);
+                shards.put(shardOf(shardPath), shard);
+                manifest.add(shardOf(shardPath));
+                for (Map.Entry<Long, Task> entry : shard.entrySet()) {
+                    keys.add(entry.getKey());
+                    tasks.add(entry.getValue());
+                }
+            }
+        }
+
+        ArrayList<Task> ordered = new ArrayList<>(tasks.size());
+        nextOrderKey = 0;
+        for (int i : sortByKey(keys)) {
+            ordered.add(tasks.get(i));
+            orderKeys.put(tasks.get(i), keys.get(i));
+            nextOrderKey = Math.max(nextOrderKey, keys.get(i) + 1);
+        }
+        return ordered;
+    }
+
+    /**
+     * Replaces every shard with the given tasks, renumbering their order keys.
+     *
+     * @param tasks The tasks in list order
+     * @throws IOException if unable to write a shard
+     */
+    void rewrite(List<Task> tasks) throws IOException {
+        Files.createDirectories(directory);
+        Set<String> dirtyShards = new HashSet<>(shards.keySet());
+        orderKeys.clear();
+        shards.clear();
+        nextOrderKey = 0;
+        for (Task task : tasks) {
+            String shard = shardOf(task);
+            orderKeys.put(task, nextOrderKey);
+            shards.computeIfAbsent(shard, s -> new TreeMap<>()).put(nextOrderKey++, task);
+            dirtyShards.add(shard);
+        }
+        writeShards(dirtyShards);
+    }
+
+    /**
+     * Persists the given changes by rewriting only the shards they touch.
+     * A reorder changes every order key, so it rewrites all shards.
+     *
+     * @param changes The changes, oldest first
+     * @param tasks Gives the full list of tasks after the changes, only asked for on a reorder
+     * @throws IOException if unable to write a shard
+     */
+    void persist(List<ChangeSet.Change> changes, Supplier<List<Task>> tasks) throws IOException {
+        Set<String> dirtyShards = new HashSet<>();
+        for (ChangeSet.Change change : changes) {
+            Task task = change.getTask();
+            switch (change.getKind()) {
+                case ADD:
+                    orderKeys.put(task, nextOrderKey);
+                    shards.computeIfAbsent(shardOf(task), s -> new TreeMap<>()).put(nextOrderKey++, task);
+                    dirtyShards.add(shardOf(task));
+                    break;
+                case DELETE:
+                    Long orderKey = orderKeys.remove(task);
+                    assert orderKey != null : "Every stored task should have an order key";
+                    shards.get(shardOf(task)).remove(orderKey);
+                    dirtyShards.add(shardOf(task));
+                    break;
+                case UPDATE:
+                    dirtyShards.add(shardOf(task));
+                    break;
+                case REORDER:
+                    rewrite(tasks.get());
+                    return;
+                default:
+                    throw new IllegalStateException("Unknown change kind: " + change.getKind());
+            }
+        }
+        writeShards(dirtyShards);
+    }
+
+    /**
+     * Rewrites the given shards from their tasks in memory, deleting those left
+     * without tasks, then the manifest if the set of shards changed.
+     */
+    private void writeShards(Set<String> dirtyShards) throws IOException {
+        for (String name : dirtyShards) {
+            Path shardPath = directory.resolve(name + SHARD_EXTENSION);
+            TreeMap<Long, Task> shard = shards.get(name);
+            if (shard == null || shard.isEmpty()) {
+                Files.deleteIfExists(shardPath);
+                shards.remove(name);
+                continue;
+            }
+            writeShard(shardPath, shard);
+        }
+        if (!exists() || !manifest.equals(shards.keySet())) {
+            writeManifest();
+        }
+    }
+
+    /**
+     * Writes a shard to a temporary file and moves it over the old one.
+     */
+    private void writeShard(Path shardPath, TreeMap<Long, Task> shard) throws IOException {
+        Path tempPath = Paths.get(shardPath + TEMP_SUFFIX);
+        try (BufferedWriter writer = Files.newBufferedWriter(tempPath, StandardCharsets.UTF_8)) {
+            for (Map.Entry<Long, Task> entry : shard.entrySet()) {
+                writer.write(entry.getKey() + " | " + TaskLineCodec.encodeToString(entry.getValue()));
+                writer.newLine();
+            }
+        }
+        moveIntoPlace(tempPath, shardPath);
+    }
+
+    /**
+     * Reads a shard into its tasks by order key. Corrupted lines are skipped.
+     */
+    private void readShard(Path shardPath, TreeMap<Long, Task> shard) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(shardPath, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int separator = line.indexOf(" | ");
+                try {
+                    long orderKey = Long.parseLong(line.substring(0, Math.max(separator, 0)));
+                    Task task = TaskLineCodec.decode(line.substring(separator + 3));
+                    if (task != null) {
+                        shard.put(orderKey, task);
+                    }
+                } catch (Exception e) {
+                    System.out.println("Warning: Skipping corrupted data: " + line);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the manifest, one shard name per line.
+     */
+    private void writeManifest() throws IOException {
+        Files.createDirectories(directory);
+        Path tempPath = Paths.get(manifestPath + TEMP_SUFFIX);
+        try (BufferedWriter writer = Files.newBufferedWriter(tempPath, StandardCharsets.UTF_8)) {
+            for (String name : new TreeSet<>(shards.keySet())) {
+                writer.write(name);
+                writer.newLine();
+            }
+        }
+        moveIntoPlace(tempPath, manifestPath);
+        manifest.clear();
+        manifest.addAll(shards.keySet());
+    }
+
+    /**
+     * Returns the positions of the given order keys, sorted by key.
+     */
+    private static Integer[] sortByKey(ArrayList<Long> keys) {
+        Integer[] order = new Integer[keys.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingLong(keys::get));
+        return order;
+    }
+
+    /**
+     * Returns the name of the shard a task belongs to: the todo shard, or the
+     * year and month of a deadline's due date or an event's start.
+     */
+    private static String shardOf(Task task) {
+        LocalDateTime date;
+        if (task instanceof Deadline) {
+            date = ((Deadline) task).getBy();
+        } else if (task instanceof Event) {
+            date = ((Event) task).getFrom();
+        } else {
+            return TODO_SHARD;
+        }
+        return String.format("%04d-%02d", date.getYear(), date.getMonthValue());
+    }
+
+    /**
+     * Returns the name of the shard stored in the given file.
+     */
+    private static String shardOf(Path shardPath) {
+        String fileName = shardPath.getFileName().toString();
+        return fileName.substring(0, fileName.length() - SHARD_EXTENSION.length());
+    }
+
+    /**
+     * Replaces the target file with the source file, atomically where the file system allows it.
+     */
+    private static void moveIntoPlace(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -0,0 +1,445 @@
+package galath.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+import galath.task.Deadline;
+import galath.task.Event;
+import galath.task.Task;
+import galath.task.Todo;
+
+/**
+ * Keeps tasks in a memory-mapped file of fixed-size slots, with descriptions in a side heap file.
+ *
+ * Every slot sits at a known offset, so marking a task is a single-byte write,
+ * whatever the number of tasks. The list order is a chain of next-slot links:
+ * adding links a slot to the tail, deleting unlinks it, turns it into a
+ * tombstone and pushes it on a free list for reuse, and sorting only rewrites
+ * the links. In memory, the store keeps the slot of every task and the previous
+ * slot in the chain of every slot, so adding, marking and deleting cost the same
+ * however long the list is; list positions are only worked out to sort.
+ *
+ * Slot file layout: a {@value #HEADER_SIZE}-byte header followed by
+ * {@value #SLOT_SIZE}-byte slots. Descriptions are appended to the heap file;
+ * space of deleted descriptions is reclaimed by {@link #rewrite(List)}.
+ */
+class SlotStore {
+    private static final int MAGIC = 0x474C534C; // "GLSL"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int SLOT_SIZE = 64;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int NONE = -1;
+
+    private static final int HEADER_MAGIC = 0;
+    private static final int HEADER_VERSION = 4;
+    private static final int HEADER_HIGH_WATER = 8;
+    private static final int HEADER_HEAD = 12;
+    private static final int HEADER_TAIL = 16;
+    private static final int HEADER_FREE_HEAD = 20;
+    private static final int HEADER_LIVE_COUNT = 24;
+
+    private static final int SLOT_STATE = 0;
+    private static final int SLOT_TYPE = 1;
+    private static final int SLOT_DONE = 2;
+    private static final int SLOT_NEXT = 4;
+    private static final int SLOT_DESCRIPTION_OFFSET = 8;
+    private static final int SLOT_DESCRIPTION_LENGTH = 16;
+    private static final int SLOT_FIRST_SECONDS = 24;
+    private static final int SLOT_FIRST_NANOS = 32;
+    private static final int SLOT_SECOND_NANOS = 36;
+    private static final int SLOT_SECOND_SECONDS = 40;
+    private static final int SLOT_ID = 48;
+
+    private static final byte STATE_LIVE = 1;
+    private static final byte STATE_TOMBSTONE = 2;
+
+    private final Path slotPath;
+    private final Path heapPath;
+    private FileChannel slotChannel;
+    private FileChannel heapChannel;
+    private ByteBuffer slots;
+    private int capacity;
+    private final IdentityHashMap<Task, Integer> slotOf = new IdentityHashMap<>();
+    /** The slot before every slot in the order chain, or NONE for the head. */
+    private int[] previousSlot = new int[INITIAL_CAPACITY];
+
+    /**
+     * Creates a slot store next to the given data file. Nothing is opened until {@link #open()}.
+     *
+     * @param filePath The path to the data file
+     */
+    SlotStore(String filePath) {
+        this.slotPath = Paths.get(filePath + ".slots");
+        this.heapPath = Paths.get(filePath + ".heap");
+    }
+
+    /**
+     * Returns whether a slot store with a valid header already exists on disk.
+     *
+     * @return true if the slot file exists and is initialized
+     * @throws IOException if unable to read the slot file
+     */
+    boolean exists() throws IOException {
+        if (!Files.exists(slotPath) || Files.size(slotPath) < HEADER_SIZE || !Files.exists(heapPath)) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(slotPath, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(8);
+            channel.read(header, 0);
+            return header.getInt(HEADER_MAGIC) == MAGIC && header.getInt(HEADER_VERSION) == VERSION;
+        }
+    }
+
+    /**
+     * Opens the slot store and reads every live task, following the order links.
+     *
+     * @return The tasks in list order
+     * @throws IOException if unable to read the store or it is malformed
+     */
+    ArrayList<Task> open() throws IOException {
+        openChannels();
+        if (slotChannel.size() < HEADER_SIZE || slots.getInt(HEADER_MAGIC) != MAGIC) {
+            initialize();
+        }
+
+        long heapSize = heapChannel.size();
+        if (heapSize > Integer.MAX_VALUE) {
+            throw new IOException("Description heap is too large to load");
+        }
+        ByteBuffer heap = ByteBuffer.allocate((int) heapSize);
+        while (heap.hasRemaining() && heapChannel.read(heap, heap.position()) > 0) {
+            // Keep reading until the whole heap is in memory
+        }
+        return readChain(heap.array());
+    }
+
+    /**
+     * Reads every live task without mapping the files, so the store can be removed afterwards.
+     * Used to hand the tasks back to the data file when another mode takes over.
+     *
+     * @return The tasks in list order
+     * @throws IOException if unable to read the store or it is malformed
+     */
+    ArrayList<Task> readUnmapped() throws IOException {
+        slots = ByteBuffer.wrap(Files.readAllBytes(slotPath));
+        capacity = (slots.capacity() - HEADER_SIZE) / SLOT_SIZE;
+        try {
+            return readChain(Files.readAllBytes(heapPath));
+        } finally {
+            slots = null;
+            slotOf.clear();
+        }
+    }
+
+    /**
+     * Deletes the slot and heap files of a store that is not open.
+     *
+     * @throws IOException if unable to delete the files
+     */
+    void remove() throws IOException {
+        assert slots == null : "An open slot store should not be removed";
+        Files.deleteIfExists(slotPath);
+        Files.deleteIfExists(heapPath);
+    }
+
+    /**
+     * Follows the order links from the head, reading every live task and noting its slot.
+     */
+    private ArrayList<Task> readChain(byte[] heapBytes) throws IOException {
+        int liveCount = slots.getInt(HEADER_LIVE_COUNT);
+        ArrayList<Task> tasks = new ArrayList<>(liveCount);
+        slotOf.clear();
+        previousSlot = new int[capacity];
+        int previous = NONE;
+        for (int slot = slots.getInt(HEADER_HEAD); slot != NONE; slot = slots.getInt(offset(slot) + SLOT_NEXT)) {
+            if (tasks.size() == liveCount || slot < 0 || slot >= capacity) {
+                throw new IOException("Slot order links are corrupted");
+            }
+            Task task = readTask(slot, heapBytes);
+            tasks.add(task);
+            slotOf.put(task, slot);
+            previousSlot[slot] = previous;
+            previous = slot;
+        }
+        return tasks;
+    }
+
+    /**
+     * Appends a task at the end of the list, reusing a free slot if there is one.
+     *
+     * @param task The task to add
+     * @throws IOException if unable to write the description or grow the slot file
+     */
+    void add(Task task) throws IOException {
+        int slot = slots.getInt(HEADER_FREE_HEAD);
+        if (slot != NONE) {
+            slots.putInt(HEADER_FREE_HEAD, slots.getInt(offset(slot) + SLOT_NEXT));
+        } else {
+            slot = slots.getInt(HEADER_HIGH_WATER);
+            if (slot == capacity) {
+                map(capacity * 2);
+            }
+            slots.putInt(HEADER_HIGH_WATER, slot + 1);
+        }
+
+        // Fill the slot before linking it, so the chain never reaches a half-written slot
+        writeTask(slot, task);
+        int tail = slots.getInt(HEADER_TAIL);
+        if (tail == NONE) {
+            slots.putInt(HEADER_HEAD, slot);
+        } else {
+            slots.putInt(offset(tail) + SLOT_NEXT, slot);
+        }
+        slots.putInt(HEADER_TAIL, slot);
+        slots.putInt(HEADER_LIVE_COUNT, slots.getInt(HEADER_LIVE_COUNT) + 1);
+        previousSlot[slot] = tail;
+        slotOf.put(task, slot);
+    }
+
+    /**
+     * Sets the done flag of a task with a single-byte write.
+     *
+     * @param task The task, as added or read
+     * @param isDone The new done flag
+     */
+    void setDone(Task task, boolean isDone) {
+        slots.put(offset(slotOfTask(task)) + SLOT_DONE, (byte) (isDone ? 1 : 0));
+    }
+
+    /**
+     * Removes a task: unlinks its slot, marks it as a tombstone and pushes it on the free list.
+     *
+     * @param task The task, as added or read
+     */
+    void delete(Task task) {
+        int slot = slotOfTask(task);
+        slotOf.remove(task);
+        int next = slots.getInt(offset(slot) + SLOT_NEXT);
+        int previous = previousSlot[slot];
+
+        if (previous == NONE) {
+            slots.putInt(HEADER_HEAD, next);
+        } else {
+            slots.putInt(offset(previous) + SLOT_NEXT, next);
+        }
+        if (next == NONE) {
+            slots.putInt(HEADER_TAIL, previous);
+        } else {
+            previousSlot[next] = previous;
+        }
+
+        slots.put(offset(slot) + SLOT_STATE, STATE_TOMBSTONE);
+        slots.putInt(offset(slot) + SLOT_NEXT, slots.getInt(HEADER_FREE_HEAD));
+        slots.putInt(HEADER_FREE_HEAD, slot);
+        slots.putInt(HEADER_LIVE_COUNT, slots.getInt(HEADER_LIVE_COUNT) - 1);
+    }
+
+    /**
+     * Reorders the list by rewriting only the order links.
+     *
+     * @param previousIndices The previous list position of every task, in the new order
+     */
+    void reorder(int[] previousIndices) {
+        int size = slots.getInt(HEADER_LIVE_COUNT);
+        assert previousIndices.length == size : "Permutation should cover the whole list";
+        int[] order = new int[size];
+        int position = 0;
+        for (int slot = slots.getInt(HEADER_HEAD); slot != NONE; slot = slots.getInt(offset(slot) + SLOT_NEXT)) {
+            order[position++] = slot;
+        }
+
+        int previous = NONE;
+        for (int i = 0; i < size; i++) {
+            int slot = order[previousIndices[i]];
+            int next = i + 1 < size ? order[previousIndices[i + 1]] : NONE;
+            slots.putInt(offset(slot) + SLOT_NEXT, next);
+            previousSlot[slot] = previous;
+            previous = slot;
+        }
+        slots.putInt(HEADER_HEAD, size == 0 ? NONE : order[previousIndices[0]]);
+        slots.putInt(HEADER_TAIL, previous);
+    }
+
+    /**
+     * Replaces the whole store with the given tasks, compacting slots and the description heap.
+     *
+     * @param tasks The tasks, in list order
+     * @throws IOException if unable to write the store
+     */
+    void rewrite(List<Task> tasks) throws IOException {
+        if (slots == null) {
+            openChannels();
+        }
+        heapChannel.truncate(0);
+        initialize();
+        for (Task task : tasks) {
+            add(task);
+        }
+    }
+
+    /**
+     * Forces every change to the slot and heap files onto the storage device.
+     *
+     * @throws IOException if unable to force the heap file
+     */
+    void force() throws IOException {
+        if (slots instanceof MappedByteBuffer) {
+            ((MappedByteBuffer) slots).force();
+            heapChannel.force(false);
+        }
+    }
+
+    /**
+     * Opens the slot and heap files and maps the slot file.
+     */
+    private void openChannels() throws IOException {
+        slotChannel = FileChannel.open(slotPath, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        heapChannel = FileChannel.open(heapPath, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        long slotCount = (slotChannel.size() - HEADER_SIZE) / SLOT_SIZE;
+        map((int) Math.max(INITIAL_CAPACITY, slotCount));
+    }
+
+    /**
+     * Maps the slot file with room for the given number of slots, growing the file if needed.
+     */
+    private void map(int slotCapacity) throws IOException {
+        slots = slotChannel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) slotCapacity * SLOT_SIZE);
+        capacity = slotCapacity;
+        if (previousSlot.length < capacity) {
+            previousSlot = Arrays.copyOf(previousSlot, capacity);
+        }
+    }
+
+    /**
+     * Writes an empty header, dropping every slot.
+     */
+    private void initialize() {
+        slots.putInt(HEADER_MAGIC, MAGIC);
+        slots.putInt(HEADER_VERSION, VERSION);
+        slots.putInt(HEADER_HIGH_WATER, 0);
+        slots.putInt(HEADER_HEAD, NONE);
+        slots.putInt(HEADER_TAIL, NONE);
+        slots.putInt(HEADER_FREE_HEAD, NONE);
+        slots.putInt(HEADER_LIVE_COUNT, 0);
+        slotOf.clear();
+    }
+
+    /**
+     * Returns the slot holding a task.
+     */
+    private int slotOfTask(Task task) {
+        Integer slot = slotOf.get(task);
+        assert slot != null : "Task should be in the slot store";
+        return slot;
+    }
+
+    /**
+     * Returns the byte offset of a slot in the slot file.
+     */
+    private static int offset(int slot) {
+        return HEADER_SIZE + slot * SLOT_SIZE;
+    }
+
+    /**
+     * Appends the description to the heap and fills the slot with the task.
+     */
+    private void writeTask(int slot, Task task) throws IOException {
+        byte[] description = task.getDescription().getBytes(StandardCharsets.UTF_8);
+        long descriptionOffset = heapChannel.size();
+        ByteBuffer heapRecord = ByteBuffer.wrap(description);
+        while (heapRecord.hasRemaining()) {
+            heapChannel.write(heapRecord, descriptionOffset + heapRecord.position());
+        }
+
+        int base = offset(slot);
+        byte type;
+        if (task instanceof Deadline) {
+            type = 'D';
+            writeDateTime(base + SLOT_FIRST_SECONDS, base + SLOT_FIRST_NANOS, ((Deadline) task).getBy());
+        } else if (task instanceof Event) {
+            type = 'E';
+            writeDateTime(base + SLOT_FIRST_SECONDS, base + SLOT_FIRST_NANOS, ((Event) task).getFrom());
+            writeDateTime(base + SLOT_SECOND_SECONDS, base + SLOT_SECOND_NANOS, ((Event) task).getTo());
+        } else {
+            type = 'T';
+        }
+        slots.put(base + SLOT_TYPE, type);
+        slots.put(base + SLOT_DONE, (byte) (task.getIsDone() ? 1 : 0));
+        slots.putInt(base + SLOT_NEXT, NONE);
+        slots.putLong(base + SLOT_DESCRIPTION_OFFSET, descriptionOffset);
+        slots.putInt(base + SLOT_DESCRIPTION_LENGTH, description.length);
+        slots.putLong(base + SLOT_ID, task.getId());
+        slots.put(base + SLOT_STATE, STATE_LIVE);
+    }
+
+    /**
+     * Reads the task in a live slot, taking its description from the loaded heap.
+     */
+    private Task readTask(int slot, byte[] heap) throws IOException {
+        int base = offset(slot);
+        if (slots.get(base + SLOT_STATE) != STATE_LIVE) {
+            throw new IOException("Order links reach a slot that is not live");
+        }
+        long descriptionOffset = slots.getLong(base + SLOT_DESCRIPTION_OFFSET);
+        int descriptionLength = slots.getInt(base + SLOT_DESCRIPTION_LENGTH);
+        if (descriptionOffset < 0 || descriptionLength < 0 || descriptionOffset + descriptionLength > heap.length) {
+            throw new IOException("Slot points outside the description heap");
+        }
+        String description = new String(heap, (int) descriptionOffset, descriptionLength, StandardCharsets.UTF_8);
+
+        Task task;
+        switch (slots.get(base + SLOT_TYPE)) {
+            case 'T':
+                task = new Todo(description);
+                break;
+            case 'D':
+                task = new Deadline(description, readDateTime(base + SLOT_FIRST_SECONDS, base + SLOT_FIRST_NANOS));
+                break;
+            case 'E':
+                task = new Event(description, readDateTime(base + SLOT_FIRST_SECONDS, base + SLOT_FIRST_NANOS),
+                        readDateTime(base + SLOT_SECOND_SECONDS, base + SLOT_SECOND_NANOS));
+                break;
+            default:
+                throw new IOException("Unknown task type in slot " + slot);
+        }
+        if (slots.get(base + SLOT_DONE) != 0) {
+            task.markAsDone();
+        }
+        long id = slots.getLong(base + SLOT_ID);
+        if (id > 0) {
+            task.setId(id);
+        }
+        return task;
+    }
+
+    /**
+     * Writes a date-time as UTC epoch seconds and nanoseconds.
+     */
+    private void writeDateTime(int secondsOffset, int nanosOffset, LocalDateTime dateTime) {
+        slots.putLong(secondsOffset, dateTime.toEpochSecond(ZoneOffset.UTC));
+        slots.putInt(nanosOffset, dateTime.getNano());
+    }
+
+    /**
+     * Reads a date-time written by {@link #writeDateTime}.
+     */
+    private LocalDateTime readDateTime(int secondsOffset, int nanosOffset) {
+        return LocalDateTime.ofEpochSecond(slots.getLong(secondsOffset), slots.getInt(nanosOffset), ZoneOffset.UTC);
+    }
+}
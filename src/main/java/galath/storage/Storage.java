@@ -1,36 +1,84 @@
 package galath.storage;
 
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
-import galath.task.Deadline;
-import galath.task.Event;
+import galath.task.ChangeSet;
 import galath.task.Task;
-import galath.task.Todo;
-import java.io.File;
-import java.io.FileWriter;
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
-import java.util.List;
+import galath.task.TaskList;
 
 /**
  * Handles loading and saving tasks to a file.
+ *
+ * In {@link Mode#SNAPSHOT} mode every save rewrites the whole data file.
+ * In {@link Mode#JOURNAL} mode each mutation is appended as a small record to a
+ * journal file next to the data file, and {@link #load()} replays the journal
+ * on top of the data file. Once the journal passes a size or record-count
+ * threshold, a background thread compacts it into a fresh data file.
+ * In {@link Mode#WRITE_BEHIND} mode mutations only mark the list dirty, and a
+ * saver thread merges bursts of them into one full write; call {@link #flush()}
+ * before exiting.
+ * In {@link Mode#SLOTTED} mode tasks live in a memory-mapped store of fixed-size
+ * slots next to the data file, so marking a task rewrites one byte and deleting
+ * or sorting only relinks slots. The data file is read once to seed the store and
+ * is not kept up to date after that; loading in any other mode writes the store's
+ * tasks back to the data file and removes the store.
+ * In {@link Mode#SHARDED} mode todos are kept in one shard file and deadlines and
+ * events in one shard per month, and only shards holding a changed task are
+ * rewritten. The data file is read once to seed the shards.
+ *
+ * {@link #saveChanges(TaskList)} persists only what changed since the last save
+ * where the mode allows it; {@link #save(List)} always writes every task.
+ *
+ * The data file is written in the {@link Format} given at construction;
+ * {@link #load()} detects the format of an existing file from its header.
+ * Checksummed files can be verified with {@link #scrub()}.
  */
 public class Storage {
+    /** Represents how mutations are persisted. */
+    public enum Mode {
+        SNAPSHOT, JOURNAL, WRITE_BEHIND, SLOTTED, SHARDED
+    }
+
+    /** Represents the format of the data file. */
+    public enum Format {
+        TEXT, BINARY, CHECKSUMMED
+    }
+
+    private static final String SNAPSHOT_SUFFIX = ".snapshot";
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+    private static final int DEFAULT_COMPACTION_RECORDS = 1000;
+    private static final long DEFAULT_COMPACTION_BYTES = 1024 * 1024;
+    private static final long DEFAULT_WRITE_BEHIND_MILLIS = 50;
+    private static final String RECORD_ADD = "add";
+    private static final String RECORD_DONE = "done";
+    private static final String RECORD_DELETE = "delete";
+    private static final String RECORD_ORDER = "order";
+
     private final Path filePath;
-    private static final DateTimeFormatter STORAGE_FORMAT = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+    private final Path snapshotPath;
+    private final Mode mode;
+    private final Format format;
+    private final Journal journal;
+    private final SlotStore slotStore;
+    private final ShardStore shardStore;
+    private int compactionRecords = DEFAULT_COMPACTION_RECORDS;
+    private long compactionBytes = DEFAULT_COMPACTION_BYTES;
+    private ExecutorService compactor;
+    private Future<?> compaction;
+    private long writeBehindMillis = DEFAULT_WRITE_BEHIND_MILLIS;
+    private WriteBehindSaver saver;
 
     /**
      * Creates a Storage instance with the specified file path.
@@ -38,14 +86,114 @@ public class Storage {
      * @param filePath The relative path to the data file
      */
     public Storage(String filePath) {
+        this(filePath, Mode.SNAPSHOT);
+    }
+
+    /**
+     * Creates a Storage instance with the specified file path and persistence mode.
+     *
+     * @param filePath The relative path to the data file
+     * @param mode How mutations are persisted
+     */
+    public Storage(String filePath, Mode mode) {
+        this(filePath, mode, Format.TEXT);
+    }
+
+    /**
+     * Creates a Storage instance with the specified file path, persistence mode and file format.
+     *
+     * @param filePath The relative path to the data file
+     * @param mode How mutations are persisted
+     * @param format The format data files are written in
+     */
+    public Storage(String filePath, Mode mode, Format format) {
         assert filePath != null : "File path should not be null";
         assert !filePath.trim().isEmpty() : "File path should not be empty";
+        assert mode != null : "Storage mode should not be null";
+        assert format != null : "Storage format should not be null";
         this.filePath = Paths.get(filePath);
+        this.snapshotPath = Paths.get(filePath + SNAPSHOT_SUFFIX);
+        this.mode = mode;
+        this.format = format;
+        this.journal = new Journal(filePath);
+        this.slotStore = new SlotStore(filePath);
+        this.shardStore = new ShardStore(filePath);
+    }
+
+    /**
+     * Returns the persistence mode of this storage.
+     *
+     * @return The persistence mode
+     */
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Returns the format data files are written in.
+     *
+     * @return The file format
+     */
+    public Format getFormat() {
+        return format;
+    }
+
+    /**
+     * Sets when the journal is compacted into a fresh data file.
+     * Compaction starts once either threshold is reached.
+     *
+     * @param records The number of journal records that triggers compaction
+     * @param bytes The journal size in bytes that triggers compaction
+     */
+    public void setCompactionThresholds(int records, long bytes) {
+        assert records > 0 && bytes > 0 : "Compaction thresholds should be positive";
+        this.compactionRecords = records;
+        this.compactionBytes = bytes;
+    }
+
+    /**
+     * Sets how long the write-behind saver waits for more mutations before writing.
+     * Takes effect if set before the first mutation is saved.
+     *
+     * @param millis The merge window in milliseconds
+     */
+    public void setWriteBehindWindow(long millis) {
+        assert millis >= 0 : "Write-behind window should not be negative";
+        this.writeBehindMillis = millis;
+    }
+
+    /**
+     * Returns how many full writes the write-behind saver has performed.
+     *
+     * @return The number of writes, or 0 if the saver has not started
+     */
+    public int getWriteBehindCount() {
+        return saver == null ? 0 : saver.getWriteCount();
+    }
+
+    /**
+     * Blocks until every mutation saved so far is on disk.
+     * Waits for pending write-behind saves and background compactions.
+     *
+     * @throws IOException if a pending write failed
+     */
+    public void flush() throws IOException {
+        if (saver != null) {
+            saver.flush();
+        }
+        awaitCompaction();
+        if (mode == Mode.SLOTTED) {
+            slotStore.force();
+        }
     }
 
     /**
      * Loads tasks from the data file.
      * Creates the file and directory if they don't exist.
+     * In journal mode, the journal is replayed on top of the data file.
+     * In slotted and sharded mode, tasks are read from the slot store or the shards,
+     * which are seeded from the data file the first time. In any other mode, a slot
+     * store left from a slotted session is first written back to the data file.
      *
      * @return ArrayList of tasks loaded from file
      */
@@ -55,23 +203,35 @@ public class Storage {
         try {
             // Create directory and file if they don't exist
             createFileIfNotExists();
+            if (mode == Mode.JOURNAL) {
+                awaitCompaction();
+                recoverSnapshot();
+            }
+            if (mode != Mode.SLOTTED && slotStore.exists()) {
+                // The slot store was the live copy until now, the data file is out of date
+                writeTasks(filePath, slotStore.readUnmapped());
+                slotStore.remove();
+            }
 
-            // Read all lines from file
-            List<String> lines = Files.readAllLines(filePath);
-
-            // Parse each line into a task
-            for (String line : lines) {
-                try {
-                    Task task = parseTaskFromLine(line);
-                    if (task != null) {
-                        tasks.add(task);
-                    }
-                } catch (Exception e) {
-                    // Skip corrupted lines
-                    System.out.println("Warning: Skipping corrupted data: " + line);
-                }
+            if (mode == Mode.SLOTTED && slotStore.exists()) {
+                tasks = slotStore.open();
+            } else if (mode == Mode.SHARDED && shardStore.exists()) {
+                tasks = shardStore.load();
+            } else {
+                tasks = readTasks(filePath);
             }
 
+            if (mode == Mode.JOURNAL) {
+                replayJournal(tasks);
+                if (journal.hasRotated()) {
+                    // A previous compaction was interrupted, finish it from the replayed state
+                    startCompaction(tasks);
+                }
+            } else if (mode == Mode.SLOTTED && !slotStore.exists()) {
+                slotStore.rewrite(tasks);
+            } else if (mode == Mode.SHARDED && !shardStore.exists()) {
+                shardStore.rewrite(tasks);
+            }
         } catch (IOException e) {
             System.out.println("Warning: Unable to load data file. Starting with empty task list.");
         }
@@ -82,20 +242,439 @@ public class Storage {
 
     /**
      * Saves tasks to the data file.
+     * In journal mode the journal is folded into the new data file the same way
+     * a compaction does it, so a crash midway never applies a record twice.
+     * In write-behind mode the save goes through the saver and is flushed, so it
+     * cannot be overtaken by an older pending write.
+     * In slotted mode the slot store is rebuilt, which also reclaims the space of deleted tasks.
+     * In sharded mode every shard is rewritten.
      *
      * @param tasks The list of tasks to save
      * @throws IOException if unable to write to file
      */
-    public void save(ArrayList<Task> tasks) throws IOException {
+    public void save(List<Task> tasks) throws IOException {
         assert tasks != null : "Task list to save should not be null";
         createFileIfNotExists();
 
-        FileWriter writer = new FileWriter(filePath.toFile());
-        for (Task task : tasks) {
-            assert task != null : "Individual task in list should not be null";
-            writer.write(convertTaskToLine(task) + System.lineSeparator());
+        switch (mode) {
+            case JOURNAL:
+                awaitCompaction();
+                journal.rotate();
+                writeSnapshot(tasks);
+                break;
+            case WRITE_BEHIND:
+                markDirty(tasks);
+                saver.flush();
+                break;
+            case SLOTTED:
+                slotStore.rewrite(tasks);
+                break;
+            case SHARDED:
+                shardStore.rewrite(tasks);
+                break;
+            default:
+                writeTasks(filePath, tasks);
+                break;
+        }
+    }
+
+    /**
+     * Reads every task in a data file, detecting its format from the header.
+     * A checksummed file first has a record torn by a crash cut off its end.
+     *
+     * @param path The data file
+     * @return The tasks in file order
+     * @throws IOException if unable to read the file
+     */
+    static ArrayList<Task> readTasks(Path path) throws IOException {
+        if (BinaryTaskCodec.isBinary(path)) {
+            return BinaryTaskCodec.read(path);
+        }
+        boolean isChecksummed = ChecksummedTaskCodec.isChecksummed(path);
+        if (isChecksummed) {
+            ChecksummedTaskCodec.repairTail(path);
+        }
+        // Read and parse the file in chunks, in parallel for large files
+        return ChunkedTaskLoader.load(path, isChecksummed);
+    }
+
+    /**
+     * Checks the checksum of every record in the data file without parsing the tasks.
+     * Waits for pending writes first, so the file on disk is complete.
+     *
+     * @return The report of the check; files without checksums are reported as such
+     * @throws IOException if unable to read the data file
+     */
+    public ScrubReport scrub() throws IOException {
+        flush();
+        createFileIfNotExists();
+        if (!ChecksummedTaskCodec.isChecksummed(filePath)) {
+            return new ScrubReport(false, 0, new ArrayList<>());
+        }
+        return ChecksummedTaskCodec.scrub(filePath);
+    }
+
+    /**
+     * Persists the changes recorded by the task list since the last save, then clears them.
+     * Journal and slotted modes apply the changes one by one, sharded mode rewrites
+     * only the shards they touch; snapshot and write-behind
+     * modes, and a change set that overflowed, fall back to writing every task.
+     *
+     * @param taskList The task list whose changes to persist
+     * @throws IOException if unable to write to file
+     */
+    public void saveChanges(TaskList taskList) throws IOException {
+        assert taskList != null : "Task list to save should not be null";
+        ChangeSet changes = taskList.getChanges();
+        if (changes.isEmpty()) {
+            return;
+        }
+
+        if (changes.isFull()) {
+            save(taskList.snapshot());
+        } else if (mode == Mode.SHARDED) {
+            // Only a reorder needs the whole list
+            shardStore.persist(changes.getChanges(), taskList::snapshot);
+        } else if (mode == Mode.JOURNAL || mode == Mode.SLOTTED) {
+            for (ChangeSet.Change change : changes.getChanges()) {
+                applyChange(change);
+            }
+            if (mode == Mode.JOURNAL) {
+                // Only check after the whole batch, so a compaction snapshot matches every record
+                compactIfNeeded(taskList.snapshot());
+            }
+        } else {
+            persistAll(taskList.snapshot());
         }
-        writer.close();
+        changes.clear();
+    }
+
+    /**
+     * Appends a journal record or updates the slot store for a single change.
+     *
+     * @param change The change to persist
+     * @throws IOException if unable to write to file
+     */
+    private void applyChange(ChangeSet.Change change) throws IOException {
+        switch (change.getKind()) {
+            case ADD:
+                if (mode == Mode.SLOTTED) {
+                    slotStore.add(change.getTask());
+                } else {
+                    appendRecord(RECORD_ADD + " | " + convertTaskToLine(change.getTask()));
+                }
+                break;
+            case DELETE:
+                if (mode == Mode.SLOTTED) {
+                    slotStore.delete(change.getTask());
+                } else {
+                    appendRecord(RECORD_DELETE + " | " + change.getIndex());
+                }
+                break;
+            case UPDATE:
+                if (mode == Mode.SLOTTED) {
+                    slotStore.setDone(change.getTask(), change.getIsDone());
+                } else {
+                    String isDone = change.getIsDone() ? "1" : "0";
+                    appendRecord(RECORD_DONE + " | " + change.getIndex() + " | " + isDone);
+                }
+                break;
+            case REORDER:
+                if (mode == Mode.SLOTTED) {
+                    slotStore.reorder(change.getPreviousIndices());
+                } else {
+                    appendRecord(RECORD_ORDER + " | " + joinIndices(change.getPreviousIndices()));
+                }
+                break;
+            default:
+                throw new IllegalStateException("Unknown change kind: " + change.getKind());
+        }
+    }
+
+    /**
+     * Joins list positions with commas, as stored in order records.
+     *
+     * @param indices The positions to join
+     * @return The comma-separated positions
+     */
+    private static String joinIndices(int[] indices) {
+        StringBuilder joined = new StringBuilder();
+        for (int i = 0; i < indices.length; i++) {
+            if (i > 0) {
+                joined.append(',');
+            }
+            joined.append(indices[i]);
+        }
+        return joined.toString();
+    }
+
+    /**
+     * Persists the whole list after a mutation: synchronously in snapshot mode,
+     * or by marking it dirty in write-behind mode.
+     *
+     * @param tasks The full list of tasks
+     * @throws IOException if unable to write to file
+     */
+    private void persistAll(List<Task> tasks) throws IOException {
+        if (mode == Mode.WRITE_BEHIND) {
+            markDirty(tasks);
+        } else {
+            save(tasks);
+        }
+    }
+
+    /**
+     * Marks the list dirty for the write-behind saver, starting it on first use.
+     * The saver writes to the snapshot file and moves it over the data file, so a
+     * crash during a write never leaves a half-written data file.
+     *
+     * @param tasks The full list of tasks
+     * @throws IOException if unable to create the data file
+     */
+    private void markDirty(List<Task> tasks) throws IOException {
+        if (saver == null) {
+            createFileIfNotExists();
+            saver = new WriteBehindSaver(snapshot -> {
+                writeTasks(snapshotPath, snapshot);
+                moveSnapshotToDataFile();
+            }, writeBehindMillis);
+        }
+        saver.markDirty(tasks);
+    }
+
+    /**
+     * Waits for a running background compaction to finish.
+     * Compaction failures are reported as warnings; the rotated journal is kept
+     * so that no records are lost.
+     */
+    void awaitCompaction() {
+        if (compaction == null) {
+            return;
+        }
+        try {
+            compaction.get();
+        } catch (ExecutionException e) {
+            System.out.println("Warning: Unable to compact the journal: " + e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        compaction = null;
+    }
+
+    /**
+     * Appends a record to the journal without checking the compaction thresholds.
+     *
+     * @param record The record to append
+     * @throws IOException if unable to write to the journal
+     */
+    private void appendRecord(String record) throws IOException {
+        createFileIfNotExists();
+        journal.append(record);
+    }
+
+    /**
+     * Starts a compaction if the journal has grown past a threshold and none is running.
+     *
+     * @param tasks The full list of tasks, matching every record written so far
+     * @throws IOException if unable to rotate the journal
+     */
+    private void compactIfNeeded(List<Task> tasks) throws IOException {
+        boolean isOverThreshold = journal.getRecordCount() >= compactionRecords
+                || journal.getByteCount() >= compactionBytes;
+        boolean isCompacting = compaction != null && !compaction.isDone();
+        if (isOverThreshold && !isCompacting) {
+            awaitCompaction();
+            startCompaction(tasks);
+        }
+    }
+
+    /**
+     * Rotates the journal and writes a snapshot of the tasks on a background thread.
+     * The task list is copied here, on the caller's thread, so the snapshot matches
+     * exactly the records that were rotated. Tasks may still be marked or unmarked
+     * while the snapshot is written, but done records hold absolute values, so
+     * replaying the new journal on top of the snapshot still converges.
+     *
+     * @param tasks The full list of tasks, matching every record written so far
+     * @throws IOException if unable to rotate the journal
+     */
+    private void startCompaction(List<Task> tasks) throws IOException {
+        journal.rotate();
+        List<Task> snapshot = List.copyOf(tasks);
+        if (compactor == null) {
+            compactor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "galath-compactor");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        compaction = compactor.submit(() -> {
+            writeSnapshot(snapshot);
+            return null;
+        });
+    }
+
+    /**
+     * Writes the tasks to the snapshot file, then swaps it in as the data file.
+     * The rotated journal is deleted between the two steps, so that on recovery a
+     * snapshot file is only trusted once the rotated journal is gone.
+     *
+     * @param tasks The tasks to write
+     * @throws IOException if unable to write or move the snapshot
+     */
+    private void writeSnapshot(List<Task> tasks) throws IOException {
+        writeTasks(snapshotPath, tasks);
+        journal.deleteRotated();
+        moveSnapshotToDataFile();
+    }
+
+    /**
+     * Finishes or discards a snapshot left behind by an interrupted compaction.
+     * A snapshot is complete only if the rotated journal was already deleted;
+     * otherwise it may be partial and the rotated journal is replayed instead.
+     *
+     * @throws IOException if unable to move or delete the snapshot
+     */
+    private void recoverSnapshot() throws IOException {
+        if (!Files.exists(snapshotPath)) {
+            return;
+        }
+        if (journal.hasRotated()) {
+            Files.delete(snapshotPath);
+        } else {
+            moveSnapshotToDataFile();
+        }
+    }
+
+    /**
+     * Atomically replaces the data file with the snapshot file where the file system allows it.
+     *
+     * @throws IOException if unable to move the snapshot
+     */
+    private void moveSnapshotToDataFile() throws IOException {
+        try {
+            Files.move(snapshotPath, filePath, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(snapshotPath, filePath, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Writes every task to the given file in the configured format, replacing its contents.
+     *
+     * @param path The file to write
+     * @param tasks The tasks to write
+     * @throws IOException if unable to write to file
+     */
+    private void writeTasks(Path path, List<Task> tasks) throws IOException {
+        if (format == Format.BINARY) {
+            BinaryTaskCodec.write(path, tasks);
+            return;
+        }
+        if (format == Format.CHECKSUMMED) {
+            ChecksummedTaskCodec.write(path, tasks);
+            return;
+        }
+
+        TaskLineCodec codec = new TaskLineCodec();
+        try (OutputStream out = Files.newOutputStream(path)) {
+            for (Task task : tasks) {
+                assert task != null : "Individual task in list should not be null";
+                codec.encode(task);
+                codec.appendLineSeparator();
+                if (codec.length() >= WRITE_BUFFER_SIZE) {
+                    codec.writeTo(out);
+                }
+            }
+            codec.writeTo(out);
+        }
+    }
+
+    /**
+     * Applies every journal record, in order, to the tasks loaded from the data file.
+     * Records that cannot be applied are skipped with a warning.
+     *
+     * @param tasks The tasks loaded from the data file
+     * @throws IOException if unable to read the journal
+     */
+    private void replayJournal(ArrayList<Task> tasks) throws IOException {
+        for (String record : journal.readRecords()) {
+            if (record.trim().isEmpty()) {
+                continue;
+            }
+            try {
+                applyRecord(tasks, record);
+            } catch (RuntimeException e) {
+                System.out.println("Warning: Skipping corrupted journal record: " + record);
+            }
+        }
+    }
+
+    /**
+     * Applies a single journal record to the list of tasks.
+     *
+     * @param tasks The tasks to update
+     * @param record The journal record
+     * @throws IllegalArgumentException if the record is malformed
+     */
+    private void applyRecord(ArrayList<Task> tasks, String record) {
+        String[] parts = record.split(" \\| ", 2);
+        if (parts.length < 2) {
+            throw new IllegalArgumentException("Malformed journal record");
+        }
+
+        switch (parts[0]) {
+            case RECORD_ADD:
+                Task task = parseTaskFromLine(parts[1]);
+                if (task == null) {
+                    throw new IllegalArgumentException("Malformed task in journal record");
+                }
+                tasks.add(task);
+                break;
+            case RECORD_DONE:
+                String[] fields = parts[1].split(" \\| ");
+                Task updated = tasks.get(Integer.parseInt(fields[0]));
+                if (fields[1].equals("1")) {
+                    updated.markAsDone();
+                } else {
+                    updated.markAsNotDone();
+                }
+                break;
+            case RECORD_DELETE:
+                tasks.remove(Integer.parseInt(parts[1]));
+                break;
+            case RECORD_ORDER:
+                applyOrder(tasks, parts[1].split(","));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown journal record");
+        }
+    }
+
+    /**
+     * Reorders the tasks according to a permutation of previous indices.
+     *
+     * @param tasks The tasks to reorder
+     * @param previousIndices The previous index of every task, in the new order
+     * @throws IllegalArgumentException if the permutation does not match the list
+     */
+    private void applyOrder(ArrayList<Task> tasks, String[] previousIndices) {
+        if (previousIndices.length != tasks.size()) {
+            throw new IllegalArgumentException("Permutation does not match the task list");
+        }
+        ArrayList<Task> reordered = new ArrayList<>(tasks.size());
+        boolean[] isUsed = new boolean[tasks.size()];
+        for (String previousIndex : previousIndices) {
+            int index = Integer.parseInt(previousIndex);
+            if (isUsed[index]) {
+                throw new IllegalArgumentException("Permutation repeats an index");
+            }
+            isUsed[index] = true;
+            reordered.add(tasks.get(index));
+        }
+        tasks.clear();
+        tasks.addAll(reordered);
     }
 
     /**
@@ -123,50 +702,8 @@ public class Storage {
      * @param line The line to parse
      * @return The parsed Task, or null if invalid
      */
-    private Task parseTaskFromLine(String line) {
-        if (line.trim().isEmpty()) {
-            return null;
-        }
-
-        String[] parts = line.split(" \\| ");
-        if (parts.length < 3) {
-            return null;  // Invalid format
-        }
-
-        String taskType = parts[0];
-        boolean isDone = parts[1].equals("1");
-        String description = parts[2];
-
-        Task task = null;
-
-        try {
-            switch (taskType) {
-                case "T":
-                    task = new Todo(description);
-                    break;
-                case "D":
-                    if (parts.length >= 4) {
-                        LocalDateTime by = LocalDateTime.parse(parts[3], STORAGE_FORMAT);
-                        task = new Deadline(description, by);
-                    }
-                    break;
-                case "E":
-                    if (parts.length >= 5) {
-                        LocalDateTime from = LocalDateTime.parse(parts[3], STORAGE_FORMAT);
-                        LocalDateTime to = LocalDateTime.parse(parts[4], STORAGE_FORMAT);
-                        task = new Event(description, from, to);
-                    }
-                    break;
-            }
-        } catch (Exception e) {
-            return null;  // Skip if parsing fails
-        }
-
-        if (task != null && isDone) {
-            task.markAsDone();
-        }
-
-        return task;
+    static Task parseTaskFromLine(String line) {
+        return TaskLineCodec.decode(line);
     }
 
     /**
@@ -178,24 +715,8 @@ public class Storage {
      */
     private String convertTaskToLine(Task task) {
         assert task != null : "Task to convert should not be null";
-        String isDone = task.getIsDone() ? "1" : "0";
-        assert isDone.equals("0") || isDone.equals("1") : "isDone flag must be 0 or 1";
-        String line = "";
-
-        if (task instanceof Todo) {
-            line = "T | " + isDone + " | " + task.getDescription();
-        } else if (task instanceof Deadline) {
-            Deadline deadline = (Deadline) task;
-            String byStr = deadline.getBy().format(STORAGE_FORMAT);
-            line = "D | " + isDone + " | " + task.getDescription() + " | " + byStr;
-        } else if (task instanceof Event) {
-            Event event = (Event) task;
-            String fromStr = event.getFrom().format(STORAGE_FORMAT);
-            String toStr = event.getTo().format(STORAGE_FORMAT);
-            line = "E | " + isDone + " | " + task.getDescription() + " | " + fromStr + " | " + toStr;
-        }
-
+        String line = TaskLineCodec.encodeToString(task);
         assert !line.isEmpty() : "Converted task line should not be empty";
         return line;
     }
-}
\ No newline at end of file
+}
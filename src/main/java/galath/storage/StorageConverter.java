@@ -0,0 +1,61 @@
+package galath.storage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+
+import galath.task.Task;
+
+/**
+ * Converts a data file between the text, binary and checksummed formats.
+ * The format of the source file is detected from its header.
+ *
+ * Usage: StorageConverter &lt;source&gt; &lt;target&gt; &lt;text|binary|checksummed&gt;
+ */
+public class StorageConverter {
+
+    /**
+     * Converts the source data file into the target file in the given format.
+     * Source and target may be the same file.
+     *
+     * @param source The path to the existing data file
+     * @param target The path to write the converted data file to
+     * @param format The format of the converted data file
+     * @return The number of tasks converted
+     * @throws IOException if unable to read or write a file
+     */
+    public static int convert(String source, String target, Storage.Format format) throws IOException {
+        Path sourcePath = Paths.get(source);
+        if (!Files.exists(sourcePath)) {
+            throw new IOException("Data file " + source + " does not exist");
+        }
+        // Read directly rather than through Storage.load(), which falls back to an
+        // empty list on errors and would then overwrite the target with nothing
+        ArrayList<Task> tasks = Storage.readTasks(sourcePath);
+        new Storage(target, Storage.Mode.SNAPSHOT, format).save(tasks);
+        return tasks.size();
+    }
+
+    /**
+     * Runs the converter from the command line.
+     *
+     * @param args The source path, target path and target format
+     */
+    public static void main(String[] args) {
+        if (args.length != 3) {
+            System.out.println("Usage: StorageConverter <source> <target> <text|binary|checksummed>");
+            return;
+        }
+        try {
+            Storage.Format format = Storage.Format.valueOf(args[2].trim().toUpperCase());
+            int count = convert(args[0], args[1], format);
+            System.out.println("Converted " + count + " task(s) to " + format.name().toLowerCase() + ".");
+        } catch (IllegalArgumentException e) {
+            System.out.println("Unknown format " + args[2] + ". Use text, binary or checksummed.");
+        } catch (IOException e) {
+            System.out.println("Unable to convert data file: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,440 @@
+package galath.storage;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.zip.Checksum;
+
+import galath.task.Deadline;
+import galath.task.Event;
+import galath.task.Task;
+import galath.task.Todo;
+
+/**
+ * Encodes and decodes tasks in the line format of the data file.
+ * Format: TaskType | isDone | description | [extra fields] | [id]
+ * The task ID follows the fields of its type, and is left out for tasks without one.
+ *
+ * Decoding scans for the " | " delimiter by hand and parses the fixed-width
+ * ISO timestamps digit by digit, so the only objects created per line are the
+ * description and the task itself. Encoding writes UTF-8 bytes straight into a
+ * reusable buffer. Timestamps that do not fit the fixed-width form (fractions
+ * of a second, years beyond 9999) go through {@link DateTimeFormatter#ISO_LOCAL_DATE_TIME},
+ * so the output stays byte-for-byte what the formatter would produce.
+ */
+class TaskLineCodec {
+    private static final DateTimeFormatter STORAGE_FORMAT = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+    private static final int TIMESTAMP_LENGTH = 19;
+    private static final byte[] DELIMITER = {' ', '|', ' '};
+    private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+
+    private byte[] buffer;
+    private int length;
+
+    /**
+     * Creates a codec with an empty encoding buffer.
+     */
+    TaskLineCodec() {
+        this.buffer = new byte[8192];
+    }
+
+    /**
+     * Decodes one line of the data file, given as a range of UTF-8 bytes without line separator.
+     *
+     * @param bytes The bytes holding the line
+     * @param start The first byte of the line
+     * @param end The byte after the line
+     * @return The decoded task, or null if the line is blank or invalid
+     */
+    static Task decode(byte[] bytes, int start, int end) {
+        if (isBlank(bytes, start, end)) {
+            return null;
+        }
+
+        int typeEnd = indexOfDelimiter(bytes, start, end);
+        if (typeEnd < 0) {
+            return null;
+        }
+        int doneStart = typeEnd + DELIMITER.length;
+        int doneEnd = indexOfDelimiter(bytes, doneStart, end);
+        if (doneEnd < 0) {
+            return null;
+        }
+        int descriptionStart = doneEnd + DELIMITER.length;
+        int descriptionEnd = endOfField(bytes, descriptionStart, end);
+        if (descriptionEnd == descriptionStart || typeEnd - start != 1) {
+            return null;
+        }
+
+        boolean isDone = doneEnd - doneStart == 1 && bytes[doneStart] == '1';
+        String description = new String(bytes, descriptionStart, descriptionEnd - descriptionStart,
+                StandardCharsets.UTF_8);
+
+        Task task;
+        int fieldsEnd;
+        switch (bytes[start]) {
+            case 'T':
+                task = new Todo(description);
+                fieldsEnd = descriptionEnd;
+                break;
+            case 'D': {
+                if (descriptionEnd == end) {
+                    return null;
+                }
+                int byStart = descriptionEnd + DELIMITER.length;
+                fieldsEnd = endOfField(bytes, byStart, end);
+                LocalDateTime by = decodeDateTime(bytes, byStart, fieldsEnd);
+                if (by == null) {
+                    return null;
+                }
+                task = new Deadline(description, by);
+                break;
+            }
+            case 'E': {
+                if (descriptionEnd == end) {
+                    return null;
+                }
+                int fromStart = descriptionEnd + DELIMITER.length;
+                int fromEnd = endOfField(bytes, fromStart, end);
+                if (fromEnd == end) {
+                    return null;
+                }
+                int toStart = fromEnd + DELIMITER.length;
+                LocalDateTime from = decodeDateTime(bytes, fromStart, fromEnd);
+                fieldsEnd = endOfField(bytes, toStart, end);
+                LocalDateTime to = decodeDateTime(bytes, toStart, fieldsEnd);
+                if (from == null || to == null) {
+                    return null;
+                }
+                task = new Event(description, from, to);
+                break;
+            }
+            default:
+                return null;
+        }
+
+        if (isDone) {
+            task.markAsDone();
+        }
+        if (fieldsEnd < end) {
+            int idStart = fieldsEnd + DELIMITER.length;
+            long id = decodeId(bytes, idStart, endOfField(bytes, idStart, end));
+            if (id > 0) {
+                task.setId(id);
+            }
+        }
+        return task;
+    }
+
+    /**
+     * Decodes one line of the data file.
+     *
+     * @param line The line, without line separator
+     * @return The decoded task, or null if the line is blank or invalid
+     */
+    static Task decode(String line) {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        return decode(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Encodes a task as a single line, without line separator.
+     *
+     * @param task The task to encode
+     * @return The encoded line
+     */
+    static String encodeToString(Task task) {
+        TaskLineCodec codec = new TaskLineCodec();
+        codec.encode(task);
+        return new String(codec.buffer, 0, codec.length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Appends a task to the buffer, without line separator.
+     *
+     * @param task The task to encode
+     */
+    void encode(Task task) {
+        assert task != null : "Task to encode should not be null";
+        if (task instanceof Todo) {
+            appendByte('T');
+        } else if (task instanceof Deadline) {
+            appendByte('D');
+        } else if (task instanceof Event) {
+            appendByte('E');
+        } else {
+            throw new IllegalArgumentException("Unknown task type");
+        }
+        appendDelimiter();
+        appendByte(task.getIsDone() ? '1' : '0');
+        appendDelimiter();
+        appendUtf8(task.getDescription());
+
+        if (task instanceof Deadline) {
+            appendDelimiter();
+            appendDateTime(((Deadline) task).getBy());
+        } else if (task instanceof Event) {
+            Event event = (Event) task;
+            appendDelimiter();
+            appendDateTime(event.getFrom());
+            appendDelimiter();
+            appendDateTime(event.getTo());
+        }
+
+        if (task.getId() > 0) {
+            appendDelimiter();
+            appendDigits(task.getId());
+        }
+    }
+
+    /**
+     * Appends a task to the buffer as a checksummed record, without line separator:
+     * the checksum of the encoded task as eight hex digits, a space, then the task.
+     *
+     * @param task The task to encode
+     * @param checksum The checksum to compute, reset before use
+     */
+    void encodeChecksummed(Task task, Checksum checksum) {
+        ensureCapacity(9);
+        int prefixStart = length;
+        length += 9;
+        encode(task);
+
+        checksum.reset();
+        checksum.update(buffer, prefixStart + 9, length - prefixStart - 9);
+        long value = checksum.getValue();
+        for (int i = 7; i >= 0; i--) {
+            buffer[prefixStart + i] = HEX_DIGITS[(int) (value & 0xF)];
+            value >>>= 4;
+        }
+        buffer[prefixStart + 8] = ' ';
+    }
+
+    /**
+     * Appends ASCII text to the buffer, e.g. a header line.
+     *
+     * @param text The text to append
+     */
+    void appendAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            appendByte(text.charAt(i));
+        }
+    }
+
+    /**
+     * Appends the platform line separator to the buffer.
+     */
+    void appendLineSeparator() {
+        for (byte b : LINE_SEPARATOR) {
+            appendByte(b);
+        }
+    }
+
+    /**
+     * Returns the number of bytes in the buffer.
+     *
+     * @return The buffered length
+     */
+    int length() {
+        return length;
+    }
+
+    /**
+     * Writes the buffered bytes to the stream and empties the buffer.
+     *
+     * @param out The stream to write to
+     * @throws IOException if unable to write
+     */
+    void writeTo(OutputStream out) throws IOException {
+        out.write(buffer, 0, length);
+        length = 0;
+    }
+
+    /**
+     * Parses a timestamp field, using the fixed-width fast path when possible.
+     *
+     * @return The timestamp, or null if invalid
+     */
+    private static LocalDateTime decodeDateTime(byte[] bytes, int start, int end) {
+        try {
+            if (end - start == TIMESTAMP_LENGTH && bytes[start + 4] == '-' && bytes[start + 7] == '-'
+                    && bytes[start + 10] == 'T' && bytes[start + 13] == ':' && bytes[start + 16] == ':') {
+                int year = digits(bytes, start, 4);
+                int month = digits(bytes, start + 5, 2);
+                int day = digits(bytes, start + 8, 2);
+                int hour = digits(bytes, start + 11, 2);
+                int minute = digits(bytes, start + 14, 2);
+                int second = digits(bytes, start + 17, 2);
+                if (year >= 0 && month >= 0 && day >= 0 && hour >= 0 && minute >= 0 && second >= 0) {
+                    return LocalDateTime.of(year, month, day, hour, minute, second);
+                }
+            }
+            String text = new String(bytes, start, end - start, StandardCharsets.UTF_8);
+            return LocalDateTime.parse(text, STORAGE_FORMAT);
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Parses a task ID field.
+     *
+     * @return The ID, or 0 if the field is not a positive number, like the extra fields of older files
+     */
+    private static long decodeId(byte[] bytes, int start, int end) {
+        if (end == start || end - start > 18) {
+            return 0;
+        }
+        long id = 0;
+        for (int i = start; i < end; i++) {
+            int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return 0;
+            }
+            id = id * 10 + digit;
+        }
+        return id;
+    }
+
+    /**
+     * Parses a run of ASCII digits.
+     *
+     * @return The value, or -1 if a byte is not a digit
+     */
+    private static int digits(byte[] bytes, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static boolean isBlank(byte[] bytes, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if ((bytes[i] & 0xFF) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the index of the next " | " delimiter in the range, or -1 if there is none.
+     */
+    private static int indexOfDelimiter(byte[] bytes, int start, int end) {
+        for (int i = start; i + DELIMITER.length <= end; i++) {
+            if (bytes[i] == ' ' && bytes[i + 1] == '|' && bytes[i + 2] == ' ') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns where the field starting at the given index ends: the next delimiter or the end of the line.
+     */
+    private static int endOfField(byte[] bytes, int start, int end) {
+        int delimiter = indexOfDelimiter(bytes, start, end);
+        return delimiter < 0 ? end : delimiter;
+    }
+
+    private void appendDelimiter() {
+        for (byte b : DELIMITER) {
+            appendByte(b);
+        }
+    }
+
+    private void appendDateTime(LocalDateTime dateTime) {
+        int year = dateTime.getYear();
+        if (year < 0 || year > 9999 || dateTime.getNano() != 0) {
+            appendUtf8(dateTime.format(STORAGE_FORMAT));
+            return;
+        }
+        appendDigits(year, 4);
+        appendByte('-');
+        appendDigits(dateTime.getMonthValue(), 2);
+        appendByte('-');
+        appendDigits(dateTime.getDayOfMonth(), 2);
+        appendByte('T');
+        appendDigits(dateTime.getHour(), 2);
+        appendByte(':');
+        appendDigits(dateTime.getMinute(), 2);
+        appendByte(':');
+        appendDigits(dateTime.getSecond(), 2);
+    }
+
+    private void appendDigits(int value, int count) {
+        ensureCapacity(count);
+        for (int i = count - 1; i >= 0; i--) {
+            buffer[length + i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        length += count;
+    }
+
+    /**
+     * Appends a string as UTF-8. Unpaired surrogates become '?', as in {@link String#getBytes}.
+     */
+    private void appendUtf8(String text) {
+        ensureCapacity(text.length() * 3);
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                buffer[length++] = (byte) c;
+            } else if (c < 0x800) {
+                buffer[length++] = (byte) (0xC0 | (c >> 6));
+                buffer[length++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < text.length()
+                    && Character.isLowSurrogate(text.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                buffer[length++] = (byte) (0xF0 | (codePoint >> 18));
+                buffer[length++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                buffer[length++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                buffer[length++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                buffer[length++] = '?';
+            } else {
+                buffer[length++] = (byte) (0xE0 | (c >> 12));
+                buffer[length++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buffer[length++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    /**
+     * Appends a non-negative number in decimal.
+     */
+    private void appendDigits(long value) {
+        ensureCapacity(19);
+        int digitsStart = length;
+        do {
+            buffer[length++] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value > 0);
+        for (int i = digitsStart, j = length - 1; i < j; i++, j--) {
+            byte digit = buffer[i];
+            buffer[i] = buffer[j];
+            buffer[j] = digit;
+        }
+    }
+
+    private void appendByte(int b) {
+        ensureCapacity(1);
+        buffer[length++] = (byte) b;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (length + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + extra));
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package galath.storage;
+
+import java.io.IOException;
+import java.util.List;
+
+import galath.task.Task;
+
+/**
+ * Persists the task list on a dedicated thread, merging bursts of mutations into one write.
+ *
+ * Callers only mark the list dirty. The saver thread waits for the configured
+ * window after the first mark, then writes the latest state once, no matter how
+ * many mutations arrived in between.
+ */
+class WriteBehindSaver {
+    /**
+     * Writes a full copy of the task list.
+     */
+    interface Writer {
+        void write(List<Task> tasks) throws IOException;
+    }
+
+    private final Writer writer;
+    private final long windowMillis;
+    private List<Task> pending;
+    private long requestedVersion;
+    private long writtenVersion;
+    private boolean isFlushRequested;
+    private int writeCount;
+    private IOException lastFailure;
+    private Thread thread;
+
+    /**
+     * Creates a saver that writes through the given writer.
+     *
+     * @param writer The writer used for every merged write
+     * @param windowMillis How long to wait for more mutations before writing
+     */
+    WriteBehindSaver(Writer writer, long windowMillis) {
+        assert windowMillis >= 0 : "Write-behind window should not be negative";
+        this.writer = writer;
+        this.windowMillis = windowMillis;
+    }
+
+    /**
+     * Marks the task list dirty. Only the element references are copied here, and not
+     * even those for an immutable snapshot; formatting and writing happen on the saver thread.
+     *
+     * @param tasks The current task list
+     */
+    synchronized void markDirty(List<Task> tasks) {
+        pending = List.copyOf(tasks);
+        requestedVersion++;
+        if (thread == null) {
+            thread = new Thread(this::run, "galath-saver");
+            thread.setDaemon(true);
+            thread.start();
+        }
+        notifyAll();
+    }
+
+    /**
+     * Blocks until every mutation marked so far has been written.
+     *
+     * @throws IOException if the last write failed
+     */
+    synchronized void flush() throws IOException {
+        long target = requestedVersion;
+        if (writtenVersion < target) {
+            isFlushRequested = true;
+            notifyAll();
+        }
+        try {
+            while (writtenVersion < target) {
+                wait();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (lastFailure != null) {
+            IOException failure = lastFailure;
+            lastFailure = null;
+            throw failure;
+        }
+    }
+
+    /**
+     * Returns how many writes the saver has performed.
+     *
+     * @return The number of writes
+     */
+    synchronized int getWriteCount() {
+        return writeCount;
+    }
+
+    /**
+     * Runs the saver loop: wait for a dirty mark, let the window fill up, write once.
+     */
+    private void run() {
+        try {
+            while (true) {
+                List<Task> batch;
+                long version;
+                synchronized (this) {
+                    while (pending == null) {
+                        wait();
+                    }
+                    long deadline = System.currentTimeMillis() + windowMillis;
+                    long remaining = windowMillis;
+                    while (!isFlushRequested && remaining > 0) {
+                        wait(remaining);
+                        remaining = deadline - System.currentTimeMillis();
+                    }
+                    batch = pending;
+                    version = requestedVersion;
+                    pending = null;
+                    isFlushRequested = false;
+                }
+
+                IOException failure = null;
+                try {
+                    writer.write(batch);
+                } catch (IOException e) {
+                    failure = e;
+                }
+
+                synchronized (this) {
+                    writeCount++;
+                    writtenVersion = version;
+                    if (failure != null) {
+                        System.out.println("Warning: Unable to save tasks to file.");
+                        lastFailure = failure;
+                    }
+                    notifyAll();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
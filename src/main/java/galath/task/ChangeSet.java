@@ -0,0 +1,194 @@
+package galath.task;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Records the changes made to a {@link TaskList} since they were last persisted.
+ * Changes are kept in the order they were made, with list positions as they were
+ * at that moment, so a storage backend can apply them one after another.
+ * Past a limit the individual changes are dropped and the set is marked full,
+ * meaning the whole list has to be written instead.
+ */
+public class ChangeSet {
+    /** Represents the kind of a change. */
+    public enum Kind {
+        ADD, DELETE, UPDATE, REORDER
+    }
+
+    /**
+     * Represents a single change to the task list.
+     */
+    public static class Change {
+        private final Kind kind;
+        private final int index;
+        private final Task task;
+        private final boolean isDone;
+        private final int[] previousIndices;
+
+        /**
+         * Creates a change. Instances are created through the record methods of the set.
+         */
+        private Change(Kind kind, int index, Task task, boolean isDone, int[] previousIndices) {
+            this.kind = kind;
+            this.index = index;
+            this.task = task;
+            this.isDone = isDone;
+            this.previousIndices = previousIndices;
+        }
+
+        /**
+         * Returns the kind of this change.
+         *
+         * @return The change kind
+         */
+        public Kind getKind() {
+            return kind;
+        }
+
+        /**
+         * Returns the list position the change applies to. Unused for reorders.
+         *
+         * @return The position (0-based)
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * Returns the task that was added, deleted or updated. Unused for reorders.
+         *
+         * @return The changed task
+         */
+        public Task getTask() {
+            return task;
+        }
+
+        /**
+         * Returns the completion status an update set, at the time it was made.
+         *
+         * @return true if the update marked the task as done
+         */
+        public boolean getIsDone() {
+            return isDone;
+        }
+
+        /**
+         * Returns the previous position of every task in the new order. Only set for reorders.
+         *
+         * @return The previous positions, or null for other kinds of change
+         */
+        public int[] getPreviousIndices() {
+            return previousIndices;
+        }
+    }
+
+    private static final int DEFAULT_MAX_CHANGES = 10000;
+
+    private final ArrayList<Change> changes = new ArrayList<>();
+    private final int maxChanges;
+    private boolean isFull;
+
+    /**
+     * Creates an empty change set with the default limit.
+     */
+    public ChangeSet() {
+        this(DEFAULT_MAX_CHANGES);
+    }
+
+    /**
+     * Creates an empty change set that turns full past the given number of changes.
+     *
+     * @param maxChanges The number of changes kept before the set is marked full
+     */
+    public ChangeSet(int maxChanges) {
+        assert maxChanges > 0 : "Change limit should be positive";
+        this.maxChanges = maxChanges;
+    }
+
+    /**
+     * Returns the recorded changes, oldest first. Empty if the set is full.
+     *
+     * @return The unmodifiable list of changes
+     */
+    public List<Change> getChanges() {
+        return Collections.unmodifiableList(changes);
+    }
+
+    /**
+     * Returns whether individual changes were dropped and the whole list has to be persisted.
+     *
+     * @return true if the set is full
+     */
+    public boolean isFull() {
+        return isFull;
+    }
+
+    /**
+     * Returns whether nothing changed since the set was last cleared.
+     *
+     * @return true if there is nothing to persist
+     */
+    public boolean isEmpty() {
+        return !isFull && changes.isEmpty();
+    }
+
+    /**
+     * Forgets every change, e.g. after they were persisted.
+     */
+    public void clear() {
+        changes.clear();
+        isFull = false;
+    }
+
+    /**
+     * Drops the recorded changes and marks the set full, so the whole list gets persisted.
+     */
+    public void markFull() {
+        changes.clear();
+        isFull = true;
+    }
+
+    /**
+     * Records an added task at its new position.
+     */
+    void recordAdd(int index, Task task) {
+        record(new Change(Kind.ADD, index, task, task.getIsDone(), null));
+    }
+
+    /**
+     * Records a deleted task at the position it had.
+     */
+    void recordDelete(int index, Task task) {
+        record(new Change(Kind.DELETE, index, task, task.getIsDone(), null));
+    }
+
+    /**
+     * Records a change of the completion status of the task at a position.
+     */
+    void recordUpdate(int index, Task task) {
+        record(new Change(Kind.UPDATE, index, task, task.getIsDone(), null));
+    }
+
+    /**
+     * Records a new order of the same tasks.
+     */
+    void recordReorder(int[] previousIndices) {
+        record(new Change(Kind.REORDER, -1, null, false, previousIndices));
+    }
+
+    /**
+     * Records a change, or marks the set full once the limit is reached.
+     */
+    private void record(Change change) {
+        if (isFull) {
+            return;
+        }
+        if (changes.size() == maxChanges) {
+            markFull();
+            return;
+        }
+        changes.add(change);
+    }
+}
@@ -0,0 +1,94 @@
+package galath.task;
+
+import java.util.Arrays;
+
+/**
+ * Lets tasks with identical descriptions share one byte array, so a description
+ * repeated across the list is kept once. Tasks hold their descriptions as UTF-8
+ * bytes, one byte per character for ASCII text, and only make a String when the
+ * description is read. The pool is open-addressed over the shared arrays themselves.
+ * Descriptions of deleted tasks are not removed one by one: once as many deletes
+ * have happened as there are entries, the list rebuilds the pool from the tasks it
+ * still holds.
+ */
+class DescriptionPool {
+    private byte[][] table = new byte[16][];
+    private int count;
+    private int deleteCount;
+
+    /**
+     * Returns the shared array equal to a description, making this one the shared
+     * array if there is none yet.
+     *
+     * @param description The description, in UTF-8
+     * @return An equal array, shared by every task that has it
+     */
+    byte[] share(byte[] description) {
+        int mask = table.length - 1;
+        int slot = mix(Arrays.hashCode(description)) & mask;
+        while (table[slot] != null) {
+            if (Arrays.equals(table[slot], description)) {
+                return table[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = description;
+        count++;
+        if (count * 2 > table.length) {
+            grow();
+        }
+        return description;
+    }
+
+    /**
+     * Notes that a task was deleted, whose description may no longer be used.
+     *
+     * @return true if the pool should be rebuilt from the remaining tasks
+     */
+    boolean onDelete() {
+        deleteCount++;
+        return deleteCount >= count && count > 0;
+    }
+
+    /**
+     * Clears the pool and shares the descriptions of the given tasks again.
+     *
+     * @param tasks The tasks still in the list
+     */
+    void rebuild(Iterable<Task> tasks) {
+        table = new byte[16][];
+        count = 0;
+        deleteCount = 0;
+        for (Task task : tasks) {
+            task.shareDescription(share(task.getDescriptionBytes()));
+        }
+    }
+
+    /**
+     * Returns the number of distinct descriptions in the pool.
+     *
+     * @return The number of shared arrays
+     */
+    int size() {
+        return count;
+    }
+
+    private void grow() {
+        byte[][] old = table;
+        table = new byte[old.length * 2][];
+        int mask = table.length - 1;
+        for (byte[] description : old) {
+            if (description != null) {
+                int slot = mix(Arrays.hashCode(description)) & mask;
+                while (table[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = description;
+            }
+        }
+    }
+
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
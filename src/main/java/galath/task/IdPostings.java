@@ -0,0 +1,77 @@
+package galath.task;
+
+import java.util.Arrays;
+
+/**
+ * Holds the IDs of the tasks sharing one index key, as a primitive array sorted by
+ * ID, so an ID is found by binary search. New tasks get ever larger IDs and indexes
+ * are filled in ID order, so adding almost always appends.
+ */
+class IdPostings {
+    private long[] ids = new long[4];
+    private int size;
+
+    /**
+     * Adds an ID at its place in ID order.
+     *
+     * @param id The task ID
+     */
+    void add(long id) {
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+        int i = size;
+        if (size > 0 && id < ids[size - 1]) {
+            i = insertionPoint(id);
+            System.arraycopy(ids, i, ids, i + 1, size - i);
+        }
+        ids[i] = id;
+        size++;
+    }
+
+    /**
+     * Removes an ID, found by binary search; the later IDs move down by one.
+     *
+     * @param id The task ID
+     */
+    void remove(long id) {
+        int i = Arrays.binarySearch(ids, 0, size, id);
+        if (i >= 0) {
+            System.arraycopy(ids, i + 1, ids, i, size - i - 1);
+            size--;
+        }
+    }
+
+    /**
+     * Returns the ID at the given position, in ascending order of ID.
+     *
+     * @param i The position
+     * @return The task ID
+     */
+    long get(int i) {
+        return ids[i];
+    }
+
+    /**
+     * Returns the number of IDs.
+     *
+     * @return The size
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns a copy of the IDs, which are already sorted.
+     *
+     * @return The sorted IDs
+     */
+    long[] toSortedArray() {
+        return Arrays.copyOf(ids, size);
+    }
+
+    private int insertionPoint(long id) {
+        int i = Arrays.binarySearch(ids, 0, size, id);
+        return i >= 0 ? i : -i - 1;
+    }
+}
@@ -0,0 +1,120 @@
+package galath.task;
+
+/**
+ * Maps task IDs to tasks with open addressing on primitive long keys.
+ * Avoids boxing every key as {@link java.util.HashMap} would. Key 0 marks an
+ * empty slot, which is why task IDs start at 1. Removal shifts later entries of
+ * the probe sequence back instead of leaving tombstones.
+ */
+class LongTaskMap {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private long[] keys = new long[INITIAL_CAPACITY];
+    private Task[] values = new Task[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * Returns the task with the given ID.
+     *
+     * @param key The task ID
+     * @return The task, or null if there is none
+     */
+    Task get(long key) {
+        int mask = keys.length - 1;
+        for (int i = slotOf(key, mask); keys[i] != 0; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return values[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Maps an ID to a task, replacing any previous mapping.
+     *
+     * @param key The task ID, a positive number
+     * @param value The task
+     */
+    void put(long key, Task value) {
+        assert key != 0 : "Task ID 0 is reserved for empty slots";
+        if ((size + 1) * 4 > keys.length * 3) {
+            resize(keys.length * 2);
+        }
+        int mask = keys.length - 1;
+        int i = slotOf(key, mask);
+        while (keys[i] != 0 && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        if (keys[i] == 0) {
+            size++;
+        }
+        keys[i] = key;
+        values[i] = value;
+    }
+
+    /**
+     * Removes the mapping of an ID.
+     *
+     * @param key The task ID
+     * @return The removed task, or null if there was none
+     */
+    Task remove(long key) {
+        int mask = keys.length - 1;
+        int i = slotOf(key, mask);
+        while (keys[i] != key) {
+            if (keys[i] == 0) {
+                return null;
+            }
+            i = (i + 1) & mask;
+        }
+        Task removed = values[i];
+
+        // Shift back later entries whose probe sequence passes through the freed slot
+        int gap = i;
+        for (int j = (gap + 1) & mask; keys[j] != 0; j = (j + 1) & mask) {
+            int home = slotOf(keys[j], mask);
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                keys[gap] = keys[j];
+                values[gap] = values[j];
+                gap = j;
+            }
+        }
+        keys[gap] = 0;
+        values[gap] = null;
+        size--;
+        return removed;
+    }
+
+    /**
+     * Returns the number of mappings.
+     *
+     * @return The size
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Spreads the bits of a key and returns its home slot.
+     */
+    private static int slotOf(long key, int mask) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    /**
+     * Rehashes every mapping into tables of the given capacity, a power of two.
+     */
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        Task[] oldValues = values;
+        keys = new long[capacity];
+        values = new Task[capacity];
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+}
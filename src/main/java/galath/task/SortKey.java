@@ -0,0 +1,67 @@
+package galath.task;
+
+/**
+ * One key of a sort, such as "deadline" or "name desc".
+ * Keys are combined in order: later keys only break ties left by earlier ones.
+ * Tasks without a value for a date key (for example todos under "deadline")
+ * always come last, whatever the direction.
+ */
+public class SortKey {
+    /** Represents the value a task is sorted by. */
+    public enum Field {
+        /** Description, case-insensitive. */
+        NAME,
+        /** Todos, then Deadlines, then Events. */
+        TYPE,
+        /** Due date of deadlines. */
+        DEADLINE,
+        /** Start date of events. */
+        EVENT,
+        /** Due date of deadlines and start date of events. */
+        DATE
+    }
+
+    private final Field field;
+    private final boolean isDescending;
+
+    /**
+     * Creates a sort key.
+     *
+     * @param field        The value to sort by
+     * @param isDescending Whether larger values come first
+     */
+    public SortKey(Field field, boolean isDescending) {
+        assert field != null : "Sort field should not be null";
+        this.field = field;
+        this.isDescending = isDescending;
+    }
+
+    /**
+     * Returns the value to sort by.
+     *
+     * @return The sort field
+     */
+    public Field getField() {
+        return field;
+    }
+
+    /**
+     * Returns whether larger values come first.
+     *
+     * @return true if descending
+     */
+    public boolean getIsDescending() {
+        return isDescending;
+    }
+
+    /**
+     * Returns the key as it is written in a sort command.
+     *
+     * @return For example "deadline" or "name desc"
+     */
+    @Override
+    public String toString() {
+        String name = field.name().toLowerCase();
+        return isDescending ? name + " desc" : name;
+    }
+}
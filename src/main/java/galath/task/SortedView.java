@@ -0,0 +1,94 @@
+package galath.task;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.TreeMap;
+
+/**
+ * Keeps the tasks in one sort order, without changing the order of the list.
+ * Tasks sit in a balanced tree under their sort key, which is worked out once when
+ * a task is added, so reading the view never sorts. Tasks with equal keys are ordered
+ * by ID, that is, by when they were added. Under a date key, tasks without that date
+ * are not in the view.
+ */
+class SortedView implements TaskIndex {
+    private final SortKey.Field field;
+    private final TreeMap<Entry, Task> entries = new TreeMap<>();
+
+    /**
+     * Creates an empty view.
+     *
+     * @param field The value the view is ordered by
+     */
+    SortedView(SortKey.Field field) {
+        this.field = field;
+    }
+
+    @Override
+    public void onAdd(Task task) {
+        Entry entry = entryOf(task);
+        if (entry != null) {
+            entries.put(entry, task);
+        }
+    }
+
+    @Override
+    public void onDelete(Task task) {
+        Entry entry = entryOf(task);
+        if (entry != null) {
+            entries.remove(entry);
+        }
+    }
+
+    /**
+     * Returns the tasks in the view's order.
+     *
+     * @return The tasks, ascending by the view's key
+     */
+    ArrayList<Task> getTasks() {
+        return new ArrayList<>(entries.values());
+    }
+
+    private Entry entryOf(Task task) {
+        switch (field) {
+            case NAME:
+                return new Entry(task.getDescription().toLowerCase(), 0, 0, task.getId());
+            case TYPE:
+                return new Entry(null, TaskSorter.typeRank(task), 0, task.getId());
+            default:
+                LocalDateTime time = TaskSorter.dateOf(task, field);
+                if (time == null) {
+                    return null;
+                }
+                return new Entry(null, time.toEpochSecond(ZoneOffset.UTC), time.getNano(), task.getId());
+        }
+    }
+
+    /** A task's sort key, made unique by its ID. */
+    private static final class Entry implements Comparable<Entry> {
+        private final String name;
+        private final long value;
+        private final int fraction;
+        private final long id;
+
+        Entry(String name, long value, int fraction, long id) {
+            this.name = name;
+            this.value = value;
+            this.fraction = fraction;
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            int result = name == null ? 0 : name.compareTo(other.name);
+            if (result == 0) {
+                result = Long.compare(value, other.value);
+            }
+            if (result == 0) {
+                result = Integer.compare(fraction, other.fraction);
+            }
+            return result != 0 ? result : Long.compare(id, other.id);
+        }
+    }
+}
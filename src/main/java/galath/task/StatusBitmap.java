@@ -0,0 +1,80 @@
+package galath.task;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Holds one bit per list position, set when the task there is done.
+ * Removing a position shifts the later bits down a word at a time, so the bits
+ * stay aligned with the list without a rebuild.
+ */
+class StatusBitmap {
+    private long[] words = new long[1];
+    private int size;
+
+    /**
+     * Adds a bit for a new position at the end of the list.
+     *
+     * @param isDone Whether the task there is done
+     */
+    void add(boolean isDone) {
+        if (size == words.length * 64) {
+            words = Arrays.copyOf(words, words.length * 2);
+        }
+        size++;
+        set(size - 1, isDone);
+    }
+
+    /**
+     * Sets the bit of a position.
+     *
+     * @param position The list position (0-based)
+     * @param isDone   Whether the task there is done
+     */
+    void set(int position, boolean isDone) {
+        assert position < size : "Position should be within the list";
+        if (isDone) {
+            words[position >>> 6] |= 1L << position;
+        } else {
+            words[position >>> 6] &= ~(1L << position);
+        }
+    }
+
+    /**
+     * Removes the bit of a position; the bits after it move down by one.
+     *
+     * @param position The list position (0-based)
+     */
+    void remove(int position) {
+        assert position < size : "Position should be within the list";
+        int word = position >>> 6;
+        long below = words[word] & ((1L << position) - 1);
+        long above = (words[word] >>> 1) & -(1L << position);
+        words[word] = below | above;
+        int lastWord = (size - 1) >>> 6;
+        for (int w = word; w < lastWord; w++) {
+            words[w] |= words[w + 1] << 63;
+            words[w + 1] >>>= 1;
+        }
+        size--; // The bit shifted into the old last position was clear, as all bits past the end are
+    }
+
+    /**
+     * Runs an action on every position whose bit matches, in list order.
+     *
+     * @param isDone Whether to visit done or not-done positions
+     * @param action The action, given each position
+     */
+    void forEach(boolean isDone, IntConsumer action) {
+        for (int w = 0; w * 64 < size; w++) {
+            long bits = isDone ? words[w] : ~words[w];
+            if (!isDone && (w + 1) * 64 > size) {
+                bits &= (1L << size) - 1; // Leave out positions past the end
+            }
+            while (bits != 0) {
+                action.accept(w * 64 + Long.numberOfTrailingZeros(bits));
+                bits &= bits - 1;
+            }
+        }
+    }
+}
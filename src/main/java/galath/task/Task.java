@@ -1,12 +1,20 @@
 package galath.task;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
 /**
  * Represents a task with a description and completion status.
  * This is the base class for all task types (Todo, Deadline, Event).
+ * The description is kept as UTF-8 bytes, one byte per character for ASCII text,
+ * and turned into a String only when it is read.
  */
 public class Task {
-    protected String description;
+    private byte[] description;
     protected boolean isDone;
+    private int version;
+    private long id;
+    private long orderKey;
 
     /**
      * Creates a new Task with the specified description.
@@ -17,7 +25,7 @@ public class Task {
     public Task(String description) {
         assert description != null : "Task description should not be null";
         assert !description.trim().isEmpty() : "Task description should not be empty";
-        this.description = description;
+        this.description = description.getBytes(StandardCharsets.UTF_8);
         this.isDone = false;
     }
 
@@ -36,6 +44,9 @@ public class Task {
      * Marks the task as done.
      */
     public void markAsDone() {
+        if (!isDone) {
+            version++;
+        }
         this.isDone = true;
     }
 
@@ -43,6 +54,9 @@ public class Task {
      * Marks the task as not done.
      */
     public void markAsNotDone() {
+        if (isDone) {
+            version++;
+        }
         this.isDone = false;
     }
 
@@ -52,9 +66,29 @@ public class Task {
      * @return The task description
      */
     public String getDescription() {
+        return new String(description, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the description as UTF-8 bytes, without making a String.
+     * The array is shared and must not be changed.
+     *
+     * @return The description bytes
+     */
+    byte[] getDescriptionBytes() {
         return description;
     }
 
+    /**
+     * Replaces the description with an equal byte array that other tasks share.
+     *
+     * @param shared An array equal to the description bytes
+     */
+    void shareDescription(byte[] shared) {
+        assert Arrays.equals(shared, description) : "Shared description should equal the task's own";
+        description = shared;
+    }
+
     /**
      * Returns the completion status of the task.
      *
@@ -64,6 +98,55 @@ public class Task {
         return isDone;
     }
 
+    /**
+     * Returns the stable ID of the task, which does not change when the list is reordered.
+     *
+     * @return The ID, or 0 if the task was never added to a task list
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Sets the stable ID of the task. Called by TaskList when the task is added,
+     * and by storage when the task is loaded.
+     *
+     * @param id The ID, a positive number
+     */
+    public void setId(long id) {
+        assert id > 0 : "Task ID should be positive";
+        this.id = id;
+    }
+
+    /**
+     * Returns the key that orders the task within its list: keys grow along the list.
+     * Indexes use it to return their results in list order without knowing positions.
+     *
+     * @return The order key
+     */
+    long getOrderKey() {
+        return orderKey;
+    }
+
+    /**
+     * Sets the key that orders the task within its list.
+     *
+     * @param orderKey The order key
+     */
+    void setOrderKey(long orderKey) {
+        this.orderKey = orderKey;
+    }
+
+    /**
+     * Returns the version stamp of the task, which changes whenever its completion status does.
+     * Comparing stamps tells whether a task was modified without keeping a copy of it.
+     *
+     * @return The version stamp
+     */
+    public int getVersion() {
+        return version;
+    }
+
     /**
      * Returns a string representation of the task.
      * Format: [status_icon] description
@@ -72,6 +155,6 @@ public class Task {
      */
     @Override
     public String toString() {
-        return "[" + getStatusIcon() + "] " + description;
+        return "[" + getStatusIcon() + "] " + getDescription();
     }
 }
\ No newline at end of file
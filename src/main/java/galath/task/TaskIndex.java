@@ -0,0 +1,21 @@
+package galath.task;
+
+/**
+ * Represents a secondary index over the tasks of a {@link TaskList}.
+ * The list notifies every index it has built of each task it gains or loses.
+ */
+interface TaskIndex {
+    /**
+     * Adds a task to the index.
+     *
+     * @param task The task added to the list, with its ID already assigned
+     */
+    void onAdd(Task task);
+
+    /**
+     * Removes a task from the index.
+     *
+     * @param task The task removed from the list
+     */
+    void onDelete(Task task);
+}
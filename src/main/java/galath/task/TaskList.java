@@ -3,20 +3,79 @@ package galath.task;
 import galath.exception.GalathException;
 
 import java.time.LocalDate;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
+import java.util.stream.Collectors;
 
 /**
  * Manages the list of tasks.
+ * Every task gets a stable ID when it is added, and a hash index on the IDs finds
+ * a task without scanning the list. Positions stay available as a view over the list.
+ * Search indexes are built on first use and then kept up to date as tasks are
+ * added and deleted; their results come back in list order through order keys.
+ * Sorted views are maintained the same way, so other orderings can be read without
+ * sorting and without changing the order of the list.
+ * Changes made through this class are recorded in a {@link ChangeSet}, so storage
+ * can persist only what changed since the last save. Counts by type and status, and a
+ * bitmap of which positions are done, are kept current along the way. Tasks with the
+ * same description share one byte array, from a {@link DescriptionPool}.
+ *
+ * The list is safe to share between threads. Writes take the write lock of a
+ * {@link StampedLock} one at a time; reads share the read lock, and the cheapest
+ * reads (sizes and counts) are optimistic and take no lock unless a write got in
+ * the way. The tasks themselves are handed out as immutable snapshots, which stay
+ * valid however the list changes afterwards, so a reader never sees a half-applied
+ * sort. The lock is not reentrant: actions passed to the forEach methods must not
+ * change the list.
+ *
+ * Every change also produces a new version of a persistent {@link TaskVector}, which
+ * shares all but O(log n) nodes with the previous one. The last versions are kept,
+ * so changes can be undone and redone.
  */
 public class TaskList {
+    /** Scan instead of using the trigram index once candidates exceed this fraction of the list. */
+    private static final int MAX_CANDIDATE_FRACTION = 16;
+    /** Default list size from which scans and sorts run in parallel. */
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 200_000;
+    /** Number of changes that can be undone. */
+    private static final int HISTORY_LIMIT = 500;
+
     private final ArrayList<Task> tasks;
+    private final ChangeSet changes = new ChangeSet();
+    private final LongTaskMap idIndex = new LongTaskMap();
+    private long nextId = 1;
+    private long nextOrderKey;
+    private int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+    private StatusBitmap doneFlags = new StatusBitmap();
+    private int doneCount;
+    private final int[] typeCounts = new int[3];
+    private final DescriptionPool descriptions = new DescriptionPool();
+    private final ArrayList<TaskIndex> searchIndexes = new ArrayList<>();
+    private TokenIndex tokenIndex;
+    private TrigramIndex trigramIndex;
+    private TimeIndex timeIndex;
+    private final EnumMap<SortKey.Field, SortedView> sortedViews = new EnumMap<>(SortKey.Field.class);
+    private final StampedLock lock = new StampedLock();
+    /** The tasks as of the last change to the list's membership or order, or null until asked for. */
+    private volatile List<Task> snapshot;
+    /** The list as a persistent vector, for undo. */
+    private TaskVector version;
+    private final ArrayDeque<TaskVector> undoHistory = new ArrayDeque<>();
+    private final ArrayDeque<TaskVector> redoHistory = new ArrayDeque<>();
 
     /**
      * Creates an empty TaskList.
      */
     public TaskList() {
         this.tasks = new ArrayList<>();
+        this.version = TaskVector.EMPTY;
         assert tasks != null : "Tasks list should be initialized";
         assert tasks.isEmpty() : "New empty TaskList should have no tasks";
     }
@@ -29,6 +88,17 @@ public class TaskList {
     public TaskList(ArrayList<Task> tasks) {
         assert tasks != null : "Tasks list passed to TaskList should not be null";
         this.tasks = tasks;
+        for (Task task : tasks) {
+            nextId = Math.max(nextId, task.getId() + 1);
+        }
+        for (Task task : tasks) {
+            assignId(task);
+            task.setOrderKey(nextOrderKey++);
+            count(task, 1);
+            doneFlags.add(task.getIsDone());
+            task.shareDescription(descriptions.share(task.getDescriptionBytes()));
+        }
+        version = TaskVector.of(tasks);
     }
 
     /**
@@ -38,8 +108,28 @@ public class TaskList {
      */
     public void addTask(Task task) {
         assert task != null : "Cannot add a null task to the list";
+        long stamp = lock.writeLock();
+        try {
+            add(task);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private void add(Task task) {
+        snapshot = null;
         int sizeBefore = tasks.size();
+        assignId(task);
+        task.setOrderKey(nextOrderKey++);
+        task.shareDescription(descriptions.share(task.getDescriptionBytes()));
         tasks.add(task);
+        count(task, 1);
+        doneFlags.add(task.getIsDone());
+        for (TaskIndex searchIndex : searchIndexes) {
+            searchIndex.onAdd(task);
+        }
+        changes.recordAdd(sizeBefore, task);
+        advance(version.insert(sizeBefore, task, task.getIsDone()));
         assert tasks.size() == sizeBefore + 1 : "Task list size should increase by 1 after adding";
     }
 
@@ -51,17 +141,151 @@ public class TaskList {
      * @throws GalathException if the index is invalid
      */
     public Task deleteTask(int index) throws GalathException {
-        assert index >= 0 : "Task index should not be negative";
-        if (index < 0 || index >= tasks.size()) {
-            throw new GalathException("Task number " + (index + 1) + " does not exist. You have " + tasks.size() + " task(s) in your list.");
+        long stamp = lock.writeLock();
+        try {
+            return delete(index);
+        } finally {
+            lock.unlockWrite(stamp);
         }
+    }
+
+    private Task delete(int index) throws GalathException {
+        taskAt(index);
+        snapshot = null;
         int sizeBefore = tasks.size();
         Task removed = tasks.remove(index);
         assert removed != null : "Removed task should not be null";
+        idIndex.remove(removed.getId());
+        count(removed, -1);
+        doneFlags.remove(index);
+        if (descriptions.onDelete()) {
+            descriptions.rebuild(tasks);
+        }
+        for (TaskIndex searchIndex : searchIndexes) {
+            searchIndex.onDelete(removed);
+        }
+        changes.recordDelete(index, removed);
+        advance(version.remove(index));
         assert tasks.size() == sizeBefore - 1 : "Task list size should decrease by 1 after deletion";
         return removed;
     }
 
+    /**
+     * Deletes the tasks at the given positions, as one change: a single undo step,
+     * persisted by a single save. The remaining tasks are moved up in one pass over
+     * the list, however many are deleted. Search indexes and sorted views are dropped
+     * rather than updated task by task, and rebuilt on next use.
+     *
+     * @param indices The positions (0-based), ascending and without repeats
+     * @return The deleted tasks, in list order
+     * @throws GalathException if a position is invalid; nothing is deleted then
+     */
+    public ArrayList<Task> deleteTasks(int[] indices) throws GalathException {
+        long stamp = lock.writeLock();
+        try {
+            checkPositions(indices);
+            if (indices.length == 0) {
+                return new ArrayList<>();
+            }
+            snapshot = null;
+            ArrayList<Task> removed = new ArrayList<>(indices.length);
+            boolean isRebuildDue = false;
+            int next = 0;
+            int kept = 0;
+            for (int i = 0; i < tasks.size(); i++) {
+                Task task = tasks.get(i);
+                if (next < indices.length && indices[next] == i) {
+                    next++;
+                    removed.add(task);
+                    idIndex.remove(task.getId());
+                    count(task, -1);
+                    isRebuildDue |= descriptions.onDelete();
+                    // Earlier deletions have already moved this task up to the kept count
+                    changes.recordDelete(kept, task);
+                } else {
+                    tasks.set(kept++, task);
+                }
+            }
+            tasks.subList(kept, tasks.size()).clear();
+            dropSearchIndexes();
+            doneFlags = new StatusBitmap();
+            for (Task task : tasks) {
+                doneFlags.add(task.getIsDone());
+            }
+            if (isRebuildDue) {
+                descriptions.rebuild(tasks);
+            }
+            advance(TaskVector.of(tasks));
+            return removed;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Checks that every position of a batch is in the list before any is changed.
+     */
+    private void checkPositions(int[] indices) throws GalathException {
+        for (int i = 1; i < indices.length; i++) {
+            assert indices[i - 1] < indices[i] : "Positions should be ascending without repeats";
+        }
+        if (indices.length > 0) {
+            taskAt(indices[0]);
+            taskAt(indices[indices.length - 1]);
+        }
+    }
+
+    /**
+     * Returns the positions of the done or pending tasks, read from the status bitmap.
+     *
+     * @param isDone Whether to select done or pending tasks
+     * @return The positions (0-based), ascending
+     */
+    public int[] positionsWithStatus(boolean isDone) {
+        long stamp = lock.readLock();
+        try {
+            int[] positions = new int[isDone ? doneCount : tasks.size() - doneCount];
+            int[] count = new int[1];
+            doneFlags.forEach(isDone, i -> positions[count[0]++] = i);
+            return positions;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Returns the positions of the tasks that {@link #findTasks(String)} would find.
+     *
+     * @param keyword The keyword to search for
+     * @return The positions (0-based), ascending
+     */
+    public int[] positionsContaining(String keyword) {
+        String lowerKeyword = keyword.toLowerCase();
+        long stamp = lock.readLock();
+        try {
+            if (lowerKeyword.length() >= 3 && trigramIndex == null) {
+                stamp = toWriteLock(stamp);
+                if (trigramIndex == null) {
+                    trigramIndex = new TrigramIndex(idIndex);
+                    addSearchIndex(trigramIndex);
+                }
+            }
+            // The matches are in list order, so one pass over the list finds them all
+            ArrayList<Task> matches = find(lowerKeyword);
+            int[] positions = new int[matches.size()];
+            int next = 0;
+            for (int i = 0; i < tasks.size() && next < positions.length; i++) {
+                if (tasks.get(i) == matches.get(next)) {
+                    positions[next++] = i;
+                }
+            }
+            assert next == positions.length : "Every match should be in the list";
+            return positions;
+        } finally {
+            lock.unlock(stamp);
+        }
+    }
+
     /**
      * Gets a task from the list.
      *
@@ -70,6 +294,15 @@ public class TaskList {
      * @throws GalathException if the index is invalid
      */
     public Task getTask(int index) throws GalathException {
+        long stamp = lock.readLock();
+        try {
+            return taskAt(index);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private Task taskAt(int index) throws GalathException {
         assert index >= 0 : "Task index should not be negative";
         if (index < 0 || index >= tasks.size()) {
             throw new GalathException("Task number " + (index + 1) + " does not exist. You have " + tasks.size() + " task(s) in your list.");
@@ -79,63 +312,439 @@ public class TaskList {
         return task;
     }
 
+    /**
+     * Gets a task by its ID.
+     *
+     * @param id The ID of the task
+     * @return The task with that ID
+     * @throws GalathException if no task has that ID
+     */
+    public Task getTaskById(long id) throws GalathException {
+        long stamp = lock.readLock();
+        try {
+            return taskWithId(id);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private Task taskWithId(long id) throws GalathException {
+        Task task = idIndex.get(id);
+        if (task == null) {
+            throw new GalathException("Task #" + id + " does not exist.");
+        }
+        return task;
+    }
+
+    /**
+     * Deletes a task by its ID.
+     *
+     * @param id The ID of the task
+     * @return The deleted task
+     * @throws GalathException if no task has that ID
+     */
+    public Task deleteTaskById(long id) throws GalathException {
+        long stamp = lock.writeLock();
+        try {
+            return delete(positionOf(taskWithId(id)));
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Marks a task as done by its ID.
+     *
+     * @param id The ID of the task
+     * @return The marked task
+     * @throws GalathException if no task has that ID
+     */
+    public Task markTaskById(long id) throws GalathException {
+        long stamp = lock.writeLock();
+        try {
+            return setDone(positionOf(taskWithId(id)), true);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Marks a task as not done by its ID.
+     *
+     * @param id The ID of the task
+     * @return The unmarked task
+     * @throws GalathException if no task has that ID
+     */
+    public Task unmarkTaskById(long id) throws GalathException {
+        long stamp = lock.writeLock();
+        try {
+            return setDone(positionOf(taskWithId(id)), false);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Marks the task at the given index as done.
+     *
+     * @param index The index of the task (0-based)
+     * @return The marked task
+     * @throws GalathException if the index is invalid
+     */
+    public Task markTask(int index) throws GalathException {
+        long stamp = lock.writeLock();
+        try {
+            return setDone(index, true);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Marks the task at the given index as not done.
+     *
+     * @param index The index of the task (0-based)
+     * @return The unmarked task
+     * @throws GalathException if the index is invalid
+     */
+    public Task unmarkTask(int index) throws GalathException {
+        long stamp = lock.writeLock();
+        try {
+            return setDone(index, false);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private Task setDone(int index, boolean isDone) throws GalathException {
+        Task task = taskAt(index);
+        if (applyDone(index, task, isDone)) {
+            advance(version.setDone(index, isDone));
+        }
+        return task;
+    }
+
+    /**
+     * Marks the tasks at the given positions as done or not done, as one change:
+     * a single undo step, persisted by a single save.
+     *
+     * @param indices The positions (0-based), ascending and without repeats
+     * @param isDone  The new completion status
+     * @return The tasks at those positions, in list order
+     * @throws GalathException if a position is invalid; nothing is changed then
+     */
+    public ArrayList<Task> setTasksDone(int[] indices, boolean isDone) throws GalathException {
+        long stamp = lock.writeLock();
+        try {
+            checkPositions(indices);
+            ArrayList<Task> selected = new ArrayList<>(indices.length);
+            TaskVector next = version;
+            for (int index : indices) {
+                Task task = tasks.get(index);
+                if (applyDone(index, task, isDone)) {
+                    next = next.setDone(index, isDone);
+                }
+                selected.add(task);
+            }
+            if (next != version) {
+                advance(next);
+            }
+            return selected;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Changes the completion status of a task and records it, unless it already had that status.
+     *
+     * @return true if the status changed
+     */
+    private boolean applyDone(int index, Task task, boolean isDone) {
+        int versionBefore = task.getVersion();
+        if (isDone) {
+            task.markAsDone();
+        } else {
+            task.markAsNotDone();
+        }
+        if (task.getVersion() == versionBefore) {
+            return false;
+        }
+        doneCount += isDone ? 1 : -1;
+        doneFlags.set(index, isDone);
+        changes.recordUpdate(index, task);
+        return true;
+    }
+
+    /**
+     * Undoes the last change to the list: an add, delete, mark, unmark or sort.
+     *
+     * @return false if there is nothing left to undo
+     */
+    public boolean undo() {
+        long stamp = lock.writeLock();
+        try {
+            if (undoHistory.isEmpty()) {
+                return false;
+            }
+            redoHistory.push(version);
+            restore(undoHistory.pop());
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Redoes the last change that was undone.
+     *
+     * @return false if there is nothing to redo
+     */
+    public boolean redo() {
+        long stamp = lock.writeLock();
+        try {
+            if (redoHistory.isEmpty()) {
+                return false;
+            }
+            undoHistory.push(version);
+            restore(redoHistory.pop());
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Returns the changes made since they were last persisted.
+     * Storage clears the set once the changes are saved. The set is not guarded by
+     * the lock, so it is saved from the thread that makes the changes.
+     *
+     * @return The change set of this list
+     */
+    public ChangeSet getChanges() {
+        return changes;
+    }
+
     /**
      * Gets the number of tasks in the list.
      *
      * @return The number of tasks
      */
     public int size() {
-        return tasks.size();
+        long stamp = lock.tryOptimisticRead();
+        int size = tasks.size();
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                size = tasks.size();
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return size;
     }
 
     /**
-     * Gets all tasks in the list.
+     * Returns the tasks as an immutable list. The snapshot does not follow later adds,
+     * deletes or sorts, though marking a task shows in it, as the tasks are shared.
+     * Snapshots are reused until the list next changes, so asking again is cheap.
      *
-     * @return The ArrayList of tasks
+     * @return The tasks in list order
      */
-    public ArrayList<Task> getTasks() {
-        return tasks;
+    public List<Task> snapshot() {
+        List<Task> current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        long stamp = lock.readLock();
+        try {
+            current = List.copyOf(tasks);
+            snapshot = current;
+            return current;
+        } finally {
+            lock.unlockRead(stamp);
+        }
     }
 
     /**
-     * Gets tasks occurring on a specific date.
+     * Returns the number of tasks that are done, kept as a running count.
+     *
+     * @return The number of done tasks
+     */
+    public int getDoneCount() {
+        long stamp = lock.tryOptimisticRead();
+        int count = doneCount;
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                count = doneCount;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of tasks that are not done yet, kept as a running count.
+     *
+     * @return The number of pending tasks
+     */
+    public int getPendingCount() {
+        long stamp = lock.tryOptimisticRead();
+        int count = tasks.size() - doneCount;
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                count = tasks.size() - doneCount;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of tasks of a type, kept as a running count.
+     *
+     * @param type Todo.class, Deadline.class or Event.class
+     * @return The number of tasks of that type
+     */
+    public int getTypeCount(Class<? extends Task> type) {
+        int rank;
+        if (type == Todo.class) {
+            rank = 0;
+        } else if (type == Deadline.class) {
+            rank = 1;
+        } else if (type == Event.class) {
+            rank = 2;
+        } else {
+            throw new IllegalArgumentException("Unknown task type " + type.getSimpleName());
+        }
+        long stamp = lock.tryOptimisticRead();
+        int count = typeCounts[rank];
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                count = typeCounts[rank];
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Runs an action on every task that is done, or on every task that is not, in list
+     * order. Only the matching bits of the status bitmap are visited.
+     *
+     * @param isDone Whether to visit done or pending tasks
+     * @param action The action, given each task and its position (0-based)
+     */
+    public void forEachTaskWithStatus(boolean isDone, ObjIntConsumer<Task> action) {
+        long stamp = lock.readLock();
+        try {
+            doneFlags.forEach(isDone, i -> action.accept(tasks.get(i), i));
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Gets tasks occurring on a specific date: deadlines due that day and events spanning it.
+     * Answered from a time index, built on first use.
      *
      * @param date The date to search for
-     * @return ArrayList of tasks on that date
+     * @return ArrayList of tasks on that date, in list order
      */
     public ArrayList<Task> getTasksOnDate(LocalDate date) {
-        ArrayList<Task> matchingTasks = new ArrayList<>();
-
-        for (Task task : tasks) {
-            if (task instanceof Deadline) {
-                Deadline deadline = (Deadline) task;
-                if (deadline.getBy().toLocalDate().equals(date)) {
-                    matchingTasks.add(task);
-                }
-            } else if (task instanceof Event) {
-                Event event = (Event) task;
-                LocalDate eventStart = event.getFrom().toLocalDate();
-                LocalDate eventEnd = event.getTo().toLocalDate();
-                if (!date.isBefore(eventStart) && !date.isAfter(eventEnd)) {
-                    matchingTasks.add(task);
-                }
+        long stamp = lock.readLock();
+        try {
+            if (timeIndex == null) {
+                stamp = toWriteLock(stamp);
             }
+            return inListOrder(getTimeIndex().findOn(date));
+        } finally {
+            lock.unlock(stamp);
         }
+    }
 
-        return matchingTasks;
+    /**
+     * Returns the time index, building it on first use. Building needs the write lock.
+     *
+     * @return The time index
+     */
+    private TimeIndex getTimeIndex() {
+        if (timeIndex == null) {
+            timeIndex = new TimeIndex(idIndex);
+            addSearchIndex(timeIndex);
+        }
+        return timeIndex;
+    }
+
+    /**
+     * Runs an action on every deadline due within a range of dates and every event
+     * overlapping it, in chronological order, without collecting them in a list first.
+     * Answered from the time index, built on first use.
+     *
+     * @param from The first date of the range
+     * @param to The last date of the range
+     * @param action The action to run on each task
+     */
+    public void forEachTaskBetween(LocalDate from, LocalDate to, Consumer<Task> action) {
+        assert !from.isAfter(to) : "Range should not end before it starts";
+        long stamp = lock.readLock();
+        try {
+            if (timeIndex == null) {
+                stamp = toWriteLock(stamp);
+            }
+            getTimeIndex().forEachBetween(from, to, action);
+        } finally {
+            lock.unlock(stamp);
+        }
     }
 
     /**
      * Finds tasks containing the specified keyword in their description.
-     * The search is case-insensitive.
+     * The search is case-insensitive. Keywords of three or more characters are
+     * answered from a trigram index; shorter ones, and keywords too common for the
+     * index to narrow the search down, scan every task.
      *
      * @param keyword The keyword to search for
-     * @return ArrayList of tasks matching the keyword
+     * @return ArrayList of tasks matching the keyword, in list order
      */
     public ArrayList<Task> findTasks(String keyword) {
-        ArrayList<Task> matchingTasks = new ArrayList<>();
         String lowerKeyword = keyword.toLowerCase();
+        long stamp = lock.readLock();
+        try {
+            if (lowerKeyword.length() >= 3 && trigramIndex == null) {
+                stamp = toWriteLock(stamp);
+                if (trigramIndex == null) {
+                    trigramIndex = new TrigramIndex(idIndex);
+                    addSearchIndex(trigramIndex);
+                }
+            }
+            return find(lowerKeyword);
+        } finally {
+            lock.unlock(stamp);
+        }
+    }
 
+    private ArrayList<Task> find(String lowerKeyword) {
+        if (lowerKeyword.length() >= 3) {
+            ArrayList<Task> matches = trigramIndex.find(lowerKeyword, tasks.size() / MAX_CANDIDATE_FRACTION);
+            if (matches != null) {
+                return inListOrder(matches);
+            }
+        }
+
+        if (isParallel()) {
+            // An ordered stream keeps the matches in list order
+            return tasks.parallelStream()
+                    .filter(task -> task.getDescription().toLowerCase().contains(lowerKeyword))
+                    .collect(Collectors.toCollection(ArrayList::new));
+        }
+        ArrayList<Task> matchingTasks = new ArrayList<>();
         for (Task task : tasks) {
             if (task.getDescription().toLowerCase().contains(lowerKeyword)) {
                 matchingTasks.add(task);
@@ -145,14 +754,65 @@ public class TaskList {
         return matchingTasks;
     }
 
+    /**
+     * Finds tasks containing every word of the query as a whole word.
+     * The search is case-insensitive and answered from a word index.
+     *
+     * @param query One or more words to search for
+     * @return ArrayList of matching tasks, in list order
+     */
+    public ArrayList<Task> findTasksByWord(String query) {
+        long stamp = lock.readLock();
+        try {
+            if (tokenIndex == null) {
+                stamp = toWriteLock(stamp);
+                if (tokenIndex == null) {
+                    tokenIndex = new TokenIndex(idIndex);
+                    addSearchIndex(tokenIndex);
+                }
+            }
+            return inListOrder(tokenIndex.find(query));
+        } finally {
+            lock.unlock(stamp);
+        }
+    }
+
+    /**
+     * Sorts the tasks by one or more keys. Later keys only break ties left by
+     * earlier ones, and tasks that tie on every key keep their relative order.
+     *
+     * @param keys The sort keys, most significant first
+     */
+    public void sortBy(List<SortKey> keys) {
+        long stamp = lock.writeLock();
+        try {
+            sort(keys);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private void sort(List<SortKey> keys) {
+        snapshot = null;
+        int[] previousIndices = TaskSorter.sort(tasks, keys, isParallel());
+        Task[] previousOrder = tasks.toArray(new Task[0]);
+        for (int i = 0; i < previousIndices.length; i++) {
+            tasks.set(i, previousOrder[previousIndices[i]]);
+        }
+        doneFlags = new StatusBitmap();
+        for (Task task : tasks) {
+            doneFlags.add(task.getIsDone());
+        }
+        if (recordReorder(previousIndices)) {
+            advance(TaskVector.of(tasks));
+        }
+    }
+
     /**
      * Sorts all tasks alphabetically by description (case-insensitive).
      */
     public void sortByName() {
-        tasks.sort(Comparator.comparing(
-                t -> t.getDescription().toLowerCase()
-        ));
-        assert isSortedByName() : "Tasks should be sorted by name after sortByName()";
+        sortBy(List.of(new SortKey(SortKey.Field.NAME, false)));
     }
 
     /**
@@ -160,73 +820,254 @@ public class TaskList {
      * Non-deadline tasks maintain their relative order and come after deadlines.
      */
     public void sortDeadlines() {
-        // Separate deadlines from the rest
-        ArrayList<Task> deadlines = new ArrayList<>();
-        ArrayList<Task> others = new ArrayList<>();
+        sortBy(List.of(new SortKey(SortKey.Field.DEADLINE, false)));
+    }
 
-        for (Task task : tasks) {
-            if (task instanceof Deadline) {
-                deadlines.add(task);
-            } else {
-                others.add(task);
+    /**
+     * Sorts only Event tasks chronologically by start date.
+     * Non-event tasks maintain their relative order and come after events.
+     */
+    public void sortEvents() {
+        sortBy(List.of(new SortKey(SortKey.Field.EVENT, false)));
+    }
+
+    /**
+     * Sorts tasks by type: Todos first, then Deadlines, then Events.
+     * Within each type, the original order is preserved.
+     */
+    public void sortByType() {
+        sortBy(List.of(new SortKey(SortKey.Field.TYPE, false)));
+    }
+
+    /**
+     * Returns the tasks in a sort order, leaving the list itself as it is.
+     * The order comes from a sorted view, built on first use and then kept up to
+     * date, so no sort runs. Tasks with equal keys come in the order they were added,
+     * and tasks without the date a date key needs are left out.
+     *
+     * @param field The value to order by
+     * @return The tasks in the view's order
+     */
+    public ArrayList<Task> getTasksInOrder(SortKey.Field field) {
+        long stamp = lock.readLock();
+        try {
+            SortedView view = sortedViews.get(field);
+            if (view == null) {
+                stamp = toWriteLock(stamp);
+                view = sortedViews.get(field);
+                if (view == null) {
+                    view = new SortedView(field);
+                    addSearchIndex(view);
+                    sortedViews.put(field, view);
+                }
             }
+            return view.getTasks();
+        } finally {
+            lock.unlock(stamp);
         }
+    }
 
-        deadlines.sort(Comparator.comparing(t -> ((Deadline) t).getBy()));
+    /**
+     * Sets the list size from which scans and sorts that no index answers run in
+     * parallel on all available cores. Results are the same either way.
+     *
+     * @param parallelThreshold The size from which to go parallel
+     */
+    public void setParallelThreshold(int parallelThreshold) {
+        assert parallelThreshold > 0 : "Parallel threshold should be positive";
+        long stamp = lock.writeLock();
+        try {
+            this.parallelThreshold = parallelThreshold;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
 
-        tasks.clear();
-        tasks.addAll(deadlines);
-        tasks.addAll(others);
+    /**
+     * Returns whether the list is large enough, and the machine has the cores,
+     * for scans and sorts to run in parallel.
+     */
+    private boolean isParallel() {
+        return tasks.size() >= parallelThreshold && Runtime.getRuntime().availableProcessors() > 1;
     }
 
     /**
-     * Sorts only Event tasks chronologically by start date.
-     * Non-event tasks maintain their relative order and come after events.
+     * Trades a read lock for the write lock, for a read that has to build an index first.
+     * Other writers may get in between, so callers check again whether the index exists.
+     *
+     * @param readStamp The stamp of the read lock held
+     * @return The stamp of the write lock now held
      */
-    public void sortEvents() {
-        // Separate events from the rest
-        ArrayList<Task> events = new ArrayList<>();
-        ArrayList<Task> others = new ArrayList<>();
+    private long toWriteLock(long readStamp) {
+        long stamp = lock.tryConvertToWriteLock(readStamp);
+        if (stamp != 0) {
+            return stamp;
+        }
+        lock.unlockRead(readStamp);
+        return lock.writeLock();
+    }
 
-        for (Task task : tasks) {
-            if (task instanceof Event) {
-                events.add(task);
+    /**
+     * Adds a task to the running counts, or takes it off them.
+     *
+     * @param task The task
+     * @param delta 1 when the task joins the list, -1 when it leaves
+     */
+    private void count(Task task, int delta) {
+        typeCounts[TaskSorter.typeRank(task)] += delta;
+        if (task.getIsDone()) {
+            doneCount += delta;
+        }
+    }
+
+    /**
+     * Fills a new search index with every task and keeps it up to date from then on.
+     * Tasks go in by ID, so posting lists are filled by appending.
+     *
+     * @param searchIndex The empty index
+     */
+    private void addSearchIndex(TaskIndex searchIndex) {
+        Task[] byId = tasks.toArray(new Task[0]);
+        Arrays.sort(byId, Comparator.comparingLong(Task::getId));
+        for (Task task : byId) {
+            searchIndex.onAdd(task);
+        }
+        searchIndexes.add(searchIndex);
+    }
+
+    /**
+     * Sorts index results into list order.
+     *
+     * @param matches The matching tasks, in any order
+     * @return The same list, sorted by order key
+     */
+    private static ArrayList<Task> inListOrder(ArrayList<Task> matches) {
+        matches.sort(Comparator.comparingLong(Task::getOrderKey));
+        return matches;
+    }
+
+    /**
+     * Gives a task a fresh ID unless it already has one no other task in the list uses,
+     * and adds it to the index.
+     *
+     * @param task The task being added or loaded
+     */
+    private void assignId(Task task) {
+        if (task.getId() == 0 || idIndex.get(task.getId()) != null) {
+            task.setId(nextId++);
+        } else {
+            nextId = Math.max(nextId, task.getId() + 1);
+        }
+        idIndex.put(task.getId(), task);
+    }
+
+    /**
+     * Returns the current position of a task. Changes are recorded by position,
+     * so even lookups by ID need it. Order keys increase along the list (adds take
+     * the next key, sorts and undo renumber, deletes only leave gaps), so the
+     * position is found by binary search. A map from ID to position would instead
+     * have to renumber every later task on each delete.
+     *
+     * @param task A task in the list
+     * @return The position (0-based)
+     */
+    private int positionOf(Task task) {
+        long orderKey = task.getOrderKey();
+        int low = 0;
+        int high = tasks.size() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long middleKey = tasks.get(middle).getOrderKey();
+            if (middleKey < orderKey) {
+                low = middle + 1;
+            } else if (middleKey > orderKey) {
+                high = middle - 1;
             } else {
-                others.add(task);
+                assert tasks.get(middle) == task : "Order keys should be unique";
+                return middle;
             }
         }
+        throw new IllegalStateException("Indexed task is missing from the list");
+    }
 
-        events.sort(Comparator.comparing(t -> ((Event) t).getFrom()));
+    /**
+     * Renumbers the order keys after sorting and records the previous position of
+     * every task in the new order, unless nothing moved.
+     *
+     * @param previousIndices For every position, the position the task had before sorting
+     * @return true if any task moved
+     */
+    private boolean recordReorder(int[] previousIndices) {
+        // Order keys follow the list, so index results keep coming back in list order
+        nextOrderKey = 0;
+        for (Task task : tasks) {
+            task.setOrderKey(nextOrderKey++);
+        }
 
-        tasks.clear();
-        tasks.addAll(events);
-        tasks.addAll(others);
+        boolean isMoved = false;
+        for (int i = 0; i < previousIndices.length; i++) {
+            isMoved |= previousIndices[i] != i;
+        }
+        if (isMoved) {
+            changes.recordReorder(previousIndices);
+        }
+        return isMoved;
     }
 
     /**
-     * Sorts tasks by type: Todos first, then Deadlines, then Events.
-     * Within each type, the original order is preserved.
+     * Remembers the current version for undo and moves to the next one.
+     * A new change makes the undone changes impossible to redo.
+     *
+     * @param next The version after the change
      */
-    public void sortByType() {
-        tasks.sort(Comparator.comparingInt(t -> {
-            if (t instanceof Todo) return 0;
-            if (t instanceof Deadline) return 1;
-            return 2; // Event
-        }));
+    private void advance(TaskVector next) {
+        undoHistory.push(version);
+        if (undoHistory.size() > HISTORY_LIMIT) {
+            undoHistory.removeLast();
+        }
+        redoHistory.clear();
+        version = next;
     }
 
     /**
-     * Checks if tasks are sorted alphabetically by name.
-     * Used for assertion verification only.
+     * Replaces the whole list with a version from the history, restoring the done
+     * flags it recorded. Search indexes and sorted views are dropped and rebuilt on
+     * next use, and the change set is marked full so storage writes every task.
+     *
+     * @param target The version to go back or forward to
      */
-    private boolean isSortedByName() {
-        for (int i = 0; i < tasks.size() - 1; i++) {
-            String a = tasks.get(i).getDescription().toLowerCase();
-            String b = tasks.get(i + 1).getDescription().toLowerCase();
-            if (a.compareTo(b) > 0) {
-                return false;
-            }
+    private void restore(TaskVector target) {
+        snapshot = null;
+        for (Task task : tasks) {
+            idIndex.remove(task.getId());
         }
-        return true;
+        tasks.clear();
+        tasks.addAll(target.restore());
+        version = target;
+
+        doneCount = 0;
+        Arrays.fill(typeCounts, 0);
+        doneFlags = new StatusBitmap();
+        nextOrderKey = 0;
+        for (Task task : tasks) {
+            idIndex.put(task.getId(), task);
+            task.setOrderKey(nextOrderKey++);
+            count(task, 1);
+            doneFlags.add(task.getIsDone());
+        }
+        descriptions.rebuild(tasks);
+        dropSearchIndexes();
+        changes.markFull();
+    }
+
+    /**
+     * Drops every search index and sorted view; each is rebuilt when next used.
+     */
+    private void dropSearchIndexes() {
+        searchIndexes.clear();
+        tokenIndex = null;
+        trigramIndex = null;
+        timeIndex = null;
+        sortedViews.clear();
     }
-}
\ No newline at end of file
+}
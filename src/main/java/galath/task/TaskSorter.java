@@ -0,0 +1,286 @@
+package galath.task;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Sorts tasks by a list of sort keys.
+ * Each key is extracted from every task once, into primitive columns, before sorting;
+ * comparisons then only read arrays. Names keep their first four lower-case characters
+ * packed into a long, so most name comparisons never touch the strings.
+ * The sort is a stable merge sort over positions, so tasks that tie on every key
+ * keep their relative order. For large lists, keys are extracted and halves sorted
+ * on the common ForkJoin pool; the result is the same as sorting on one thread.
+ */
+final class TaskSorter {
+    /** Runs at most this long are insertion sorted. */
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+    /** Characters of a name packed into its prefix key. */
+    private static final int PREFIX_CHARS = 4;
+    /** Parallel sorts hand runs at most this long to a single thread. */
+    private static final int PARALLEL_GRAIN = 8192;
+
+    private final Column[] columns;
+    private final boolean isParallel;
+
+    private TaskSorter(List<Task> tasks, List<SortKey> keys, boolean isParallel) {
+        this.isParallel = isParallel;
+        columns = new Column[keys.size()];
+        for (int k = 0; k < columns.length; k++) {
+            columns[k] = extract(tasks, keys.get(k));
+        }
+    }
+
+    /**
+     * Works out the sorted order of a list of tasks, without changing the list.
+     *
+     * @param tasks      The tasks to sort, which must support fast random access
+     * @param keys       The sort keys, most significant first
+     * @param isParallel Whether to spread the work over the common ForkJoin pool
+     * @return For every position in the sorted order, the position the task has now
+     */
+    static int[] sort(List<Task> tasks, List<SortKey> keys, boolean isParallel) {
+        assert !keys.isEmpty() : "Sort needs at least one key";
+        TaskSorter sorter = new TaskSorter(tasks, keys, isParallel);
+        int[] order = new int[tasks.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        int[] buffer = new int[order.length];
+        if (isParallel) {
+            ForkJoinPool.commonPool().invoke(sorter.new ParallelMergeSort(order, buffer, 0, order.length));
+        } else {
+            sorter.mergeSort(order, buffer, 0, order.length);
+        }
+        assert sorter.isSorted(order) : "Tasks should be in key order after sorting";
+        return order;
+    }
+
+    private Column extract(List<Task> tasks, SortKey key) {
+        int n = tasks.size();
+        int sign = key.getIsDescending() ? -1 : 1;
+        switch (key.getField()) {
+            case NAME: {
+                String[] names = new String[n];
+                long[] prefixes = new long[n];
+                forEachPosition(n, i -> {
+                    names[i] = tasks.get(i).getDescription().toLowerCase();
+                    prefixes[i] = packPrefix(names[i]);
+                });
+                return new NameColumn(names, prefixes, sign);
+            }
+            case TYPE: {
+                long[] ranks = new long[n];
+                forEachPosition(n, i -> ranks[i] = typeRank(tasks.get(i)));
+                return new NumberColumn(ranks, new int[n], null, sign);
+            }
+            default: {
+                long[] seconds = new long[n];
+                int[] nanos = new int[n];
+                boolean[] isMissing = new boolean[n];
+                forEachPosition(n, i -> {
+                    LocalDateTime time = dateOf(tasks.get(i), key.getField());
+                    if (time == null) {
+                        isMissing[i] = true;
+                    } else {
+                        seconds[i] = time.toEpochSecond(ZoneOffset.UTC);
+                        nanos[i] = time.getNano();
+                    }
+                });
+                return new NumberColumn(seconds, nanos, isMissing, sign);
+            }
+        }
+    }
+
+    private void forEachPosition(int n, IntConsumer action) {
+        IntStream positions = IntStream.range(0, n);
+        (isParallel ? positions.parallel() : positions).forEach(action);
+    }
+
+    /**
+     * Returns the position of a task's type in a type sort.
+     *
+     * @param task The task
+     * @return 0 for todos, 1 for deadlines and 2 for events
+     */
+    static int typeRank(Task task) {
+        return task instanceof Todo ? 0 : task instanceof Deadline ? 1 : 2;
+    }
+
+    /**
+     * Returns the date a date key sorts a task by.
+     *
+     * @param task  The task
+     * @param field DEADLINE, EVENT or DATE
+     * @return The due or start date, or null if the key does not apply to the task
+     */
+    static LocalDateTime dateOf(Task task, SortKey.Field field) {
+        if (task instanceof Deadline && field != SortKey.Field.EVENT) {
+            return ((Deadline) task).getBy();
+        }
+        if (task instanceof Event && field != SortKey.Field.DEADLINE) {
+            return ((Event) task).getFrom();
+        }
+        return null;
+    }
+
+    /**
+     * Packs the first characters of a string into a long that compares, unsigned,
+     * the same way as the strings' prefixes. Equal prefixes say nothing about the rest.
+     */
+    private static long packPrefix(String s) {
+        long packed = 0;
+        for (int i = 0; i < PREFIX_CHARS; i++) {
+            packed = (packed << 16) | (i < s.length() ? s.charAt(i) : 0);
+        }
+        return packed;
+    }
+
+    private int compare(int a, int b) {
+        for (Column column : columns) {
+            int result = column.compare(a, b);
+            if (result != 0) {
+                return result;
+            }
+        }
+        return 0;
+    }
+
+    private void mergeSort(int[] order, int[] buffer, int from, int to) {
+        if (to - from <= INSERTION_SORT_THRESHOLD) {
+            insertionSort(order, from, to);
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        mergeSort(order, buffer, from, mid);
+        mergeSort(order, buffer, mid, to);
+        merge(order, buffer, from, mid, to);
+    }
+
+    private void merge(int[] order, int[] buffer, int from, int mid, int to) {
+        if (compare(order[mid - 1], order[mid]) <= 0) {
+            return; // Already in order
+        }
+
+        // Merge the left half, copied out, with the right half still in place
+        System.arraycopy(order, from, buffer, from, mid - from);
+        int left = from;
+        int right = mid;
+        int out = from;
+        while (left < mid && right < to) {
+            order[out++] = compare(order[right], buffer[left]) < 0 ? order[right++] : buffer[left++];
+        }
+        while (left < mid) {
+            order[out++] = buffer[left++];
+        }
+    }
+
+    private void insertionSort(int[] order, int from, int to) {
+        for (int i = from + 1; i < to; i++) {
+            int current = order[i];
+            int j = i - 1;
+            while (j >= from && compare(order[j], current) > 0) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = current;
+        }
+    }
+
+    private boolean isSorted(int[] order) {
+        for (int i = 0; i + 1 < order.length; i++) {
+            if (compare(order[i], order[i + 1]) > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Sorts the two halves of a run in parallel, then merges them. */
+    private final class ParallelMergeSort extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] order;
+        private final int[] buffer;
+        private final int from;
+        private final int to;
+
+        ParallelMergeSort(int[] order, int[] buffer, int from, int to) {
+            this.order = order;
+            this.buffer = buffer;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_GRAIN) {
+                mergeSort(order, buffer, from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new ParallelMergeSort(order, buffer, from, mid),
+                    new ParallelMergeSort(order, buffer, mid, to));
+            merge(order, buffer, from, mid, to);
+        }
+    }
+
+    /** One extracted sort key, compared by position in the original list. */
+    private abstract static class Column {
+        abstract int compare(int a, int b);
+    }
+
+    /** A lower-case name with its packed prefix. */
+    private static final class NameColumn extends Column {
+        private final String[] names;
+        private final long[] prefixes;
+        private final int sign;
+
+        NameColumn(String[] names, long[] prefixes, int sign) {
+            this.names = names;
+            this.prefixes = prefixes;
+            this.sign = sign;
+        }
+
+        @Override
+        int compare(int a, int b) {
+            int result = Long.compareUnsigned(prefixes[a], prefixes[b]);
+            if (result == 0) {
+                result = names[a].compareTo(names[b]);
+            }
+            return sign * Integer.signum(result);
+        }
+    }
+
+    /** A whole number with a tie-breaking fraction, such as epoch seconds and nanoseconds. */
+    private static final class NumberColumn extends Column {
+        private final long[] values;
+        private final int[] fractions;
+        private final boolean[] isMissing;
+        private final int sign;
+
+        NumberColumn(long[] values, int[] fractions, boolean[] isMissing, int sign) {
+            this.values = values;
+            this.fractions = fractions;
+            this.isMissing = isMissing;
+            this.sign = sign;
+        }
+
+        @Override
+        int compare(int a, int b) {
+            if (isMissing != null && isMissing[a] != isMissing[b]) {
+                return isMissing[a] ? 1 : -1; // Missing values last in either direction
+            }
+            int result = Long.compare(values[a], values[b]);
+            if (result == 0) {
+                result = Integer.compare(fractions[a], fractions[b]);
+            }
+            return sign * result;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package galath.task;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * An immutable sequence of tasks with their done flags. Every change returns a new
+ * vector that shares all but O(log n) nodes with the old one, so many versions can
+ * be kept for little more memory than one.
+ *
+ * The vector is a randomized binary search tree ordered by position, with subtree
+ * sizes to find a position. Changes split and merge along one path and copy only the
+ * nodes on it. Merging picks the root with probability proportional to subtree size,
+ * which keeps the tree balanced in expectation without storing priorities.
+ * The done flag is part of each entry because tasks themselves are mutable.
+ */
+final class TaskVector {
+    /** The empty vector. */
+    static final TaskVector EMPTY = new TaskVector(null);
+
+    private final Node root;
+
+    private static final class Node {
+        private final Task task;
+        private final boolean isDone;
+        private final Node left;
+        private final Node right;
+        private final int size;
+
+        Node(Task task, boolean isDone, Node left, Node right) {
+            this.task = task;
+            this.isDone = isDone;
+            this.left = left;
+            this.right = right;
+            this.size = sizeOf(left) + 1 + sizeOf(right);
+        }
+    }
+
+    private TaskVector(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * Creates a vector holding the tasks, with their current done flags.
+     *
+     * @param tasks The tasks, in order
+     * @return A balanced vector of them
+     */
+    static TaskVector of(List<Task> tasks) {
+        return new TaskVector(build(tasks, 0, tasks.size()));
+    }
+
+    /**
+     * Returns the number of tasks.
+     *
+     * @return The size
+     */
+    int size() {
+        return sizeOf(root);
+    }
+
+    /**
+     * Returns a vector with a task inserted.
+     *
+     * @param index  The position to insert at (0-based, up to size)
+     * @param task   The task
+     * @param isDone Whether the task is done
+     * @return The new vector
+     */
+    TaskVector insert(int index, Task task, boolean isDone) {
+        assert index >= 0 && index <= size() : "Insert position should be within the vector";
+        Node[] parts = split(root, index);
+        return new TaskVector(merge(merge(parts[0], new Node(task, isDone, null, null)), parts[1]));
+    }
+
+    /**
+     * Returns a vector with the task at a position removed.
+     *
+     * @param index The position (0-based)
+     * @return The new vector
+     */
+    TaskVector remove(int index) {
+        assert index >= 0 && index < size() : "Remove position should be within the vector";
+        Node[] parts = split(root, index);
+        Node[] rest = split(parts[1], 1);
+        return new TaskVector(merge(parts[0], rest[1]));
+    }
+
+    /**
+     * Returns a vector with the done flag at a position changed.
+     *
+     * @param index  The position (0-based)
+     * @param isDone The new flag
+     * @return The new vector
+     */
+    TaskVector setDone(int index, boolean isDone) {
+        assert index >= 0 && index < size() : "Position should be within the vector";
+        return new TaskVector(setDone(root, index, isDone));
+    }
+
+    /**
+     * Returns the task at a position.
+     *
+     * @param index The position (0-based)
+     * @return The task
+     */
+    Task get(int index) {
+        return find(index).task;
+    }
+
+    /**
+     * Returns the done flag recorded at a position.
+     *
+     * @param index The position (0-based)
+     * @return Whether the task was done in this version
+     */
+    boolean getIsDone(int index) {
+        return find(index).isDone;
+    }
+
+    /**
+     * Returns the tasks in order, with their done flags set as in this version.
+     *
+     * @return A new list of the tasks
+     */
+    ArrayList<Task> restore() {
+        ArrayList<Task> tasks = new ArrayList<>(size());
+        restore(root, tasks);
+        return tasks;
+    }
+
+    private Node find(int index) {
+        assert index >= 0 && index < size() : "Position should be within the vector";
+        Node node = root;
+        while (true) {
+            int leftSize = sizeOf(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index == leftSize) {
+                return node;
+            } else {
+                index -= leftSize + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    private static void restore(Node node, ArrayList<Task> tasks) {
+        while (node != null) {
+            restore(node.left, tasks);
+            if (node.isDone) {
+                node.task.markAsDone();
+            } else {
+                node.task.markAsNotDone();
+            }
+            tasks.add(node.task);
+            node = node.right;
+        }
+    }
+
+    private static Node build(List<Task> tasks, int from, int to) {
+        if (from >= to) {
+            return null;
+        }
+        int mid = (from + to) >>> 1;
+        Task task = tasks.get(mid);
+        return new Node(task, task.getIsDone(), build(tasks, from, mid), build(tasks, mid + 1, to));
+    }
+
+    private static Node setDone(Node node, int index, boolean isDone) {
+        int leftSize = sizeOf(node.left);
+        if (index < leftSize) {
+            return new Node(node.task, node.isDone, setDone(node.left, index, isDone), node.right);
+        } else if (index == leftSize) {
+            return new Node(node.task, isDone, node.left, node.right);
+        }
+        return new Node(node.task, node.isDone, node.left, setDone(node.right, index - leftSize - 1, isDone));
+    }
+
+    /** Splits a tree into its first count entries and the rest, copying only the path between. */
+    private static Node[] split(Node node, int count) {
+        if (node == null) {
+            return new Node[] {null, null};
+        }
+        int leftSize = sizeOf(node.left);
+        if (count <= leftSize) {
+            Node[] parts = split(node.left, count);
+            return new Node[] {parts[0], new Node(node.task, node.isDone, parts[1], node.right)};
+        }
+        Node[] parts = split(node.right, count - leftSize - 1);
+        return new Node[] {new Node(node.task, node.isDone, node.left, parts[0]), parts[1]};
+    }
+
+    /** Joins two trees, every entry of the first before every entry of the second. */
+    private static Node merge(Node first, Node second) {
+        if (first == null) {
+            return second;
+        }
+        if (second == null) {
+            return first;
+        }
+        if (ThreadLocalRandom.current().nextInt(first.size + second.size) < first.size) {
+            return new Node(first.task, first.isDone, first.left, merge(first.right, second));
+        }
+        return new Node(second.task, second.isDone, merge(first, second.left), second.right);
+    }
+
+    private static int sizeOf(Node node) {
+        return node == null ? 0 : node.size;
+    }
+}
@@ -0,0 +1,309 @@
+package galath.task;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * Indexes deadlines by due date and events by the span of days they cover,
+ * to find the tasks on a given date or in a range of dates in O(log n + k).
+ *
+ * Deadlines sit in a sorted map keyed by epoch day. Events sit in an interval
+ * tree: a treap ordered by start day, where every node also records the latest
+ * end day in its subtree, so a lookup skips every subtree that ends too early
+ * or starts too late.
+ */
+class TimeIndex implements TaskIndex {
+    private final TreeMap<Long, IdPostings> deadlines = new TreeMap<>();
+    private final LongTaskMap tasks;
+    private Node root;
+    private long seed = 0x2545F4914F6CDD1DL;
+
+    /**
+     * Represents an event in the interval tree.
+     */
+    private static class Node {
+        private final long start;
+        private final long end;
+        private final long id;
+        private final int priority;
+        private long maxEnd;
+        private Node left;
+        private Node right;
+
+        /**
+         * Creates a leaf node.
+         */
+        Node(long start, long end, long id, int priority) {
+            this.start = start;
+            this.end = end;
+            this.id = id;
+            this.priority = priority;
+            this.maxEnd = end;
+        }
+
+        /**
+         * Recomputes the latest end day of the subtree from the children.
+         */
+        void update() {
+            maxEnd = end;
+            if (left != null && left.maxEnd > maxEnd) {
+                maxEnd = left.maxEnd;
+            }
+            if (right != null && right.maxEnd > maxEnd) {
+                maxEnd = right.maxEnd;
+            }
+        }
+
+        /**
+         * Returns whether this node sorts before an event with the given start day and ID.
+         */
+        boolean isBefore(long otherStart, long otherId) {
+            return start < otherStart || (start == otherStart && id < otherId);
+        }
+    }
+
+    /**
+     * Creates an empty time index.
+     *
+     * @param tasks The ID index of the list, used to resolve IDs to tasks
+     */
+    TimeIndex(LongTaskMap tasks) {
+        this.tasks = tasks;
+    }
+
+    @Override
+    public void onAdd(Task task) {
+        if (task instanceof Deadline) {
+            long day = ((Deadline) task).getBy().toLocalDate().toEpochDay();
+            deadlines.computeIfAbsent(day, d -> new IdPostings()).add(task.getId());
+        } else if (task instanceof Event) {
+            Event event = (Event) task;
+            root = insert(root, new Node(event.getFrom().toLocalDate().toEpochDay(),
+                    event.getTo().toLocalDate().toEpochDay(), task.getId(), nextPriority()));
+        }
+    }
+
+    @Override
+    public void onDelete(Task task) {
+        if (task instanceof Deadline) {
+            long day = ((Deadline) task).getBy().toLocalDate().toEpochDay();
+            IdPostings dayPostings = deadlines.get(day);
+            if (dayPostings != null) {
+                dayPostings.remove(task.getId());
+                if (dayPostings.size() == 0) {
+                    deadlines.remove(day);
+                }
+            }
+        } else if (task instanceof Event) {
+            root = delete(root, ((Event) task).getFrom().toLocalDate().toEpochDay(), task.getId());
+        }
+    }
+
+    /**
+     * Returns the deadlines due on, and the events spanning, the given date, in no particular order.
+     *
+     * @param date The date to look up
+     * @return The matching tasks
+     */
+    ArrayList<Task> findOn(LocalDate date) {
+        long day = date.toEpochDay();
+        ArrayList<Task> matches = new ArrayList<>();
+        IdPostings dayPostings = deadlines.get(day);
+        if (dayPostings != null) {
+            for (int i = 0; i < dayPostings.size(); i++) {
+                matches.add(tasks.get(dayPostings.get(i)));
+            }
+        }
+        collectSpanning(root, day, matches);
+        return matches;
+    }
+
+    /**
+     * Passes every deadline due within the range, and every event overlapping it,
+     * to the action in chronological order: by due date or start, then list order.
+     * Deadlines and events each come out of the index ordered by day, so they are
+     * merged one day at a time and only the tasks of a single day are ever sorted.
+     *
+     * @param from The first day of the range
+     * @param to The last day of the range
+     * @param action The action to run on each task
+     */
+    void forEachBetween(LocalDate from, LocalDate to, Consumer<Task> action) {
+        long fromDay = from.toEpochDay();
+        long toDay = to.toEpochDay();
+        ArrayList<Node> events = new ArrayList<>();
+        collectOverlapping(root, fromDay, toDay, events);
+        Iterator<Map.Entry<Long, IdPostings>> deadlineDays =
+                deadlines.subMap(fromDay, true, toDay, true).entrySet().iterator();
+        Map.Entry<Long, IdPostings> deadlineDay = deadlineDays.hasNext() ? deadlineDays.next() : null;
+
+        Comparator<Task> chronological = Comparator.comparing(TimeIndex::startOf)
+                .thenComparingLong(Task::getOrderKey);
+        ArrayList<Task> batch = new ArrayList<>();
+        int nextEvent = 0;
+        while (nextEvent < events.size() || deadlineDay != null) {
+            long day = Long.MAX_VALUE;
+            if (nextEvent < events.size()) {
+                day = events.get(nextEvent).start;
+            }
+            if (deadlineDay != null && deadlineDay.getKey() < day) {
+                day = deadlineDay.getKey();
+            }
+
+            batch.clear();
+            while (nextEvent < events.size() && events.get(nextEvent).start == day) {
+                batch.add(tasks.get(events.get(nextEvent++).id));
+            }
+            if (deadlineDay != null && deadlineDay.getKey() == day) {
+                IdPostings dayPostings = deadlineDay.getValue();
+                for (int i = 0; i < dayPostings.size(); i++) {
+                    batch.add(tasks.get(dayPostings.get(i)));
+                }
+                deadlineDay = deadlineDays.hasNext() ? deadlineDays.next() : null;
+            }
+            batch.sort(chronological);
+            batch.forEach(action);
+        }
+    }
+
+    /**
+     * Returns when a deadline is due or an event starts.
+     */
+    private static LocalDateTime startOf(Task task) {
+        return task instanceof Deadline ? ((Deadline) task).getBy() : ((Event) task).getFrom();
+    }
+
+    /**
+     * Adds every event in the subtree that overlaps the range of days, in order of start day.
+     */
+    private static void collectOverlapping(Node node, long fromDay, long toDay, ArrayList<Node> events) {
+        if (node == null || node.maxEnd < fromDay) {
+            return;
+        }
+        collectOverlapping(node.left, fromDay, toDay, events);
+        if (node.start <= toDay) {
+            if (node.end >= fromDay) {
+                events.add(node);
+            }
+            collectOverlapping(node.right, fromDay, toDay, events);
+        }
+    }
+
+    /**
+     * Adds every event in the subtree that spans the given day.
+     */
+    private void collectSpanning(Node node, long day, ArrayList<Task> matches) {
+        if (node == null || node.maxEnd < day) {
+            return;
+        }
+        collectSpanning(node.left, day, matches);
+        if (node.start <= day) {
+            if (node.end >= day) {
+                matches.add(tasks.get(node.id));
+            }
+            // Events on the right start no earlier than this one, so only look there if this one started in time
+            collectSpanning(node.right, day, matches);
+        }
+    }
+
+    /**
+     * Inserts a node into the subtree, rotating it up while its priority beats its parent's.
+     */
+    private static Node insert(Node node, Node added) {
+        if (node == null) {
+            return added;
+        }
+        if (node.isBefore(added.start, added.id)) {
+            node.right = insert(node.right, added);
+            if (node.right.priority > node.priority) {
+                node = rotateLeft(node);
+            }
+        } else {
+            node.left = insert(node.left, added);
+            if (node.left.priority > node.priority) {
+                node = rotateRight(node);
+            }
+        }
+        node.update();
+        return node;
+    }
+
+    /**
+     * Removes the event with the given start day and ID from the subtree.
+     */
+    private static Node delete(Node node, long start, long id) {
+        if (node == null) {
+            return null;
+        }
+        if (node.start == start && node.id == id) {
+            return merge(node.left, node.right);
+        }
+        if (node.isBefore(start, id)) {
+            node.right = delete(node.right, start, id);
+        } else {
+            node.left = delete(node.left, start, id);
+        }
+        node.update();
+        return node;
+    }
+
+    /**
+     * Joins two subtrees where every node of the left one sorts before every node of the right one.
+     */
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            left.update();
+            return left;
+        }
+        right.left = merge(left, right.left);
+        right.update();
+        return right;
+    }
+
+    /**
+     * Lifts the right child above the node, keeping the order.
+     */
+    private static Node rotateLeft(Node node) {
+        Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        node.update();
+        pivot.update();
+        return pivot;
+    }
+
+    /**
+     * Lifts the left child above the node, keeping the order.
+     */
+    private static Node rotateRight(Node node) {
+        Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        node.update();
+        pivot.update();
+        return pivot;
+    }
+
+    /**
+     * Returns the next random treap priority, from a xorshift generator.
+     */
+    private int nextPriority() {
+        seed ^= seed << 13;
+        seed ^= seed >>> 7;
+        seed ^= seed << 17;
+        return (int) (seed >>> 32);
+    }
+}
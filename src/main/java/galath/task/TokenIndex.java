@@ -0,0 +1,105 @@
+package galath.task;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Maps every word of a description to the IDs of the tasks containing it.
+ *
+ * Words are maximal runs of letters and digits, compared case-insensitively.
+ * Posting lists are kept sorted by ID. A task is added to the posting lists of its
+ * words when added, which appends as IDs only grow, and removed from them by binary
+ * search when deleted.
+ */
+class TokenIndex implements TaskIndex {
+    private final HashMap<String, IdPostings> postings = new HashMap<>();
+    private final LongTaskMap tasks;
+
+    /**
+     * Creates an empty token index.
+     *
+     * @param tasks The ID index of the list, used to resolve postings to tasks
+     */
+    TokenIndex(LongTaskMap tasks) {
+        this.tasks = tasks;
+    }
+
+    @Override
+    public void onAdd(Task task) {
+        for (String word : distinctWords(task.getDescription())) {
+            postings.computeIfAbsent(word, w -> new IdPostings()).add(task.getId());
+        }
+    }
+
+    @Override
+    public void onDelete(Task task) {
+        for (String word : distinctWords(task.getDescription())) {
+            IdPostings wordPostings = postings.get(word);
+            if (wordPostings != null) {
+                wordPostings.remove(task.getId());
+                if (wordPostings.size() == 0) {
+                    postings.remove(word);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the tasks containing every word of the query, in no particular order.
+     * Only the tasks in the shortest posting list are checked for the other words.
+     *
+     * @param query One or more words
+     * @return The matching tasks, empty if the query has no words
+     */
+    ArrayList<Task> find(String query) {
+        ArrayList<Task> matches = new ArrayList<>();
+        List<String> words = distinctWords(query);
+        IdPostings shortest = null;
+        for (String word : words) {
+            IdPostings wordPostings = postings.get(word);
+            if (wordPostings == null) {
+                return matches;
+            }
+            if (shortest == null || wordPostings.size() < shortest.size()) {
+                shortest = wordPostings;
+            }
+        }
+        if (shortest == null) {
+            return matches;
+        }
+
+        for (int i = 0; i < shortest.size(); i++) {
+            Task task = tasks.get(shortest.get(i));
+            if (words.size() == 1 || distinctWords(task.getDescription()).containsAll(words)) {
+                matches.add(task);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Splits text into lower-cased words, each listed once.
+     *
+     * @param text The text to split
+     * @return The distinct words, in order of first appearance
+     */
+    static List<String> distinctWords(String text) {
+        List<String> words = new ArrayList<>();
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i <= text.length(); ) {
+            int codePoint = i < text.length() ? text.codePointAt(i) : ' ';
+            if (Character.isLetterOrDigit(codePoint)) {
+                word.appendCodePoint(Character.toLowerCase(codePoint));
+            } else if (word.length() > 0) {
+                String token = word.toString();
+                if (!words.contains(token)) {
+                    words.add(token);
+                }
+                word.setLength(0);
+            }
+            i += i < text.length() ? Character.charCount(codePoint) : 1;
+        }
+        return words;
+    }
+}
@@ -0,0 +1,132 @@
+package galath.task;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+
+/**
+ * Maps every run of three characters of a lower-cased description to the IDs of
+ * the tasks containing it, to answer case-insensitive substring searches.
+ *
+ * A description containing the keyword contains every trigram of the keyword,
+ * so intersecting their posting lists gives a candidate set that misses no
+ * match. Candidates then get the exact check the plain scan uses, which removes
+ * tasks that have all the trigrams in a different arrangement.
+ */
+class TrigramIndex implements TaskIndex {
+    /** Stop intersecting once a posting list is this many times larger than the candidate set. */
+    private static final int INTERSECT_RATIO = 16;
+
+    private final HashMap<Long, IdPostings> postings = new HashMap<>();
+    private final LongTaskMap tasks;
+
+    /**
+     * Creates an empty trigram index.
+     *
+     * @param tasks The ID index of the list, used to resolve postings to tasks
+     */
+    TrigramIndex(LongTaskMap tasks) {
+        this.tasks = tasks;
+    }
+
+    @Override
+    public void onAdd(Task task) {
+        for (long trigram : distinctTrigrams(task.getDescription().toLowerCase())) {
+            postings.computeIfAbsent(trigram, t -> new IdPostings()).add(task.getId());
+        }
+    }
+
+    @Override
+    public void onDelete(Task task) {
+        for (long trigram : distinctTrigrams(task.getDescription().toLowerCase())) {
+            IdPostings trigramPostings = postings.get(trigram);
+            if (trigramPostings != null) {
+                trigramPostings.remove(task.getId());
+                if (trigramPostings.size() == 0) {
+                    postings.remove(trigram);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the tasks whose lower-cased description contains the lower-cased keyword,
+     * in no particular order.
+     *
+     * @param lowerKeyword The lower-cased keyword, at least three characters long
+     * @param maxCandidates The largest candidate set worth checking instead of scanning every task
+     * @return The matching tasks, or null if even the rarest trigram has more than maxCandidates tasks
+     */
+    ArrayList<Task> find(String lowerKeyword, int maxCandidates) {
+        assert lowerKeyword.length() >= 3 : "Trigram search needs at least three characters";
+        ArrayList<Task> matches = new ArrayList<>();
+        long[] trigrams = distinctTrigrams(lowerKeyword);
+        IdPostings[] lists = new IdPostings[trigrams.length];
+        for (int i = 0; i < trigrams.length; i++) {
+            lists[i] = postings.get(trigrams[i]);
+            if (lists[i] == null) {
+                return matches;
+            }
+        }
+        Arrays.sort(lists, Comparator.comparingInt(IdPostings::size));
+        if (lists[0].size() > maxCandidates) {
+            return null;
+        }
+
+        // Intersect from the shortest list while the next list is small enough to be worth it
+        long[] candidates = lists[0].toSortedArray();
+        int count = candidates.length;
+        for (int i = 1; i < lists.length && count > 0; i++) {
+            if (lists[i].size() > (long) INTERSECT_RATIO * count) {
+                break;
+            }
+            boolean[] isHit = new boolean[count];
+            for (int j = 0; j < lists[i].size(); j++) {
+                int position = Arrays.binarySearch(candidates, 0, count, lists[i].get(j));
+                if (position >= 0) {
+                    isHit[position] = true;
+                }
+            }
+            int kept = 0;
+            for (int j = 0; j < count; j++) {
+                if (isHit[j]) {
+                    candidates[kept++] = candidates[j];
+                }
+            }
+            count = kept;
+        }
+
+        for (int i = 0; i < count; i++) {
+            Task task = tasks.get(candidates[i]);
+            if (task.getDescription().toLowerCase().contains(lowerKeyword)) {
+                matches.add(task);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Returns every distinct run of three characters in the text, each packed into a long.
+     *
+     * @param text The lower-cased text
+     * @return The distinct trigrams, sorted
+     */
+    private static long[] distinctTrigrams(String text) {
+        if (text.length() < 3) {
+            return new long[0];
+        }
+        long[] trigrams = new long[text.length() - 2];
+        for (int i = 0; i < trigrams.length; i++) {
+            trigrams[i] = ((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2);
+        }
+        Arrays.sort(trigrams);
+        int distinct = 0;
+        for (int i = 0; i < trigrams.length; i++) {
+            if (i == 0 || trigrams[i] != trigrams[i - 1]) {
+                trigrams[distinct++] = trigrams[i];
+            }
+        }
+        return Arrays.copyOf(trigrams, distinct);
+    }
+}
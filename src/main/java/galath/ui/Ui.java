@@ -51,6 +51,25 @@ public class Ui {
         System.out.println("     " + message);
     }
 
+    /**
+     * Displays one more line of a message shown with {@link #showMessage(String)},
+     * so long results can be shown as they are produced.
+     *
+     * @param line The line to display
+     */
+    public void showMessageLine(String line) {
+        System.out.println("     " + line);
+    }
+
+    /**
+     * Returns how many tasks a list shows at a time on this UI when no page is asked for.
+     *
+     * @return The page size, or 0 to show every task
+     */
+    public int getListPageSize() {
+        return 0;
+    }
+
     /**
      * Reads a command from the user.
      *
@@ -0,0 +1,115 @@
+package galath.command;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.Test;
+
+import galath.exception.GalathException;
+import galath.parser.Parser;
+import galath.task.TaskList;
+import galath.task.Todo;
+import galath.ui.Ui;
+
+public class ListCommandTest {
+    /** Records every message and line instead of printing them. */
+    private static class RecordingUi extends Ui {
+        private final ArrayList<String> lines = new ArrayList<>();
+        private final int listPageSize;
+
+        RecordingUi(int listPageSize) {
+            this.listPageSize = listPageSize;
+        }
+
+        @Override
+        public void showMessage(String message) {
+            lines.add(message);
+        }
+
+        @Override
+        public void showMessageLine(String line) {
+            lines.add(line);
+        }
+
+        @Override
+        public int getListPageSize() {
+            return listPageSize;
+        }
+    }
+
+    private static TaskList createTasks(int count) {
+        TaskList tasks = new TaskList();
+        for (int i = 1; i <= count; i++) {
+            tasks.addTask(new Todo("task " + i));
+        }
+        return tasks;
+    }
+
+    @Test
+    public void execute_lastPage_showsOnlyRemainingTasks() throws Exception {
+        RecordingUi ui = new RecordingUi(0);
+
+        Parser.parse("list --page 3 --size 50").execute(createTasks(120), ui, null);
+
+        assertEquals(22, ui.lines.size());
+        assertEquals("Here are the tasks in your list (page 3 of 3):", ui.lines.get(0));
+        assertEquals("101. [T][ ] task 101 (#101)", ui.lines.get(1));
+        assertEquals("120. [T][ ] task 120 (#120)", ui.lines.get(20));
+        assertEquals("120 task(s): 0 done, 120 pending (120 todo, 0 deadline, 0 event).", ui.lines.get(21));
+    }
+
+    @Test
+    public void execute_pagePastEnd_reportsPageCount() throws Exception {
+        RecordingUi ui = new RecordingUi(0);
+
+        Parser.parse("list --page 4 --size 50").execute(createTasks(120), ui, null);
+
+        assertEquals(1, ui.lines.size());
+        assertEquals("There is no page 4. The 120 task(s) fill 3 page(s) of 50.", ui.lines.get(0));
+    }
+
+    @Test
+    public void execute_pageSizeOnly_showsFirstPage() throws Exception {
+        RecordingUi ui = new RecordingUi(0);
+
+        Parser.parse("list --size 7").execute(createTasks(20), ui, null);
+
+        assertEquals("Here are the tasks in your list (page 1 of 3):", ui.lines.get(0));
+        assertEquals(9, ui.lines.size());
+    }
+
+    @Test
+    public void execute_uiWithListPageSize_showsFirstPageByDefault() throws Exception {
+        RecordingUi ui = new RecordingUi(ListCommand.DEFAULT_PAGE_SIZE);
+
+        new ListCommand().execute(createTasks(120), ui, null);
+
+        assertEquals("Here are the tasks in your list (page 1 of 3):", ui.lines.get(0));
+        assertEquals(ListCommand.DEFAULT_PAGE_SIZE + 2, ui.lines.size());
+
+        RecordingUi small = new RecordingUi(ListCommand.DEFAULT_PAGE_SIZE);
+        new ListCommand().execute(createTasks(3), small, null);
+        assertEquals("Here are the tasks in your list:", small.lines.get(0));
+        assertEquals(5, small.lines.size());
+    }
+
+    @Test
+    public void execute_unpaged_streamsOneLinePerTask() throws Exception {
+        RecordingUi ui = new RecordingUi(0);
+
+        new ListCommand().execute(createTasks(1000), ui, null);
+
+        assertEquals(1002, ui.lines.size());
+        assertEquals("1000. [T][ ] task 1000 (#1000)", ui.lines.get(1000));
+    }
+
+    @Test
+    public void parse_invalidPageOptions_throw() {
+        for (String input : new String[] {"list --page 0", "list --size -5", "list --page x",
+                "list --page", "list --rows 5"}) {
+            assertThrows(GalathException.class, () -> Parser.parse(input));
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package galath.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import galath.task.Task;
+
+public class StorageConverterTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void convert_textToBinaryAndBack_preservesTasks() throws Exception {
+        Path text = tempDir.resolve("galath.txt");
+        List<String> lines = List.of(
+                "T | 0 | buy groceries 🛒",
+                "D | 1 | report (final version) | 2024-12-25T14:30:00",
+                "E | 0 | late | 2024-12-25T00:00:00 | 2024-12-25T23:59:59.999999999",
+                "D | 0 | ancient | 1969-07-20T20:17:00");
+        Files.write(text, lines);
+        Path binary = tempDir.resolve("galath.bin");
+
+        assertEquals(4, StorageConverter.convert(text.toString(), binary.toString(), Storage.Format.BINARY));
+        assertTrue(BinaryTaskCodec.isBinary(binary));
+        assertTrue(Files.size(binary) < Files.size(text));
+
+        ArrayList<Task> loaded = new Storage(binary.toString()).load();
+        assertEquals(4, loaded.size());
+        assertTrue(loaded.get(1).getIsDone());
+
+        Path back = tempDir.resolve("back.txt");
+        StorageConverter.convert(binary.toString(), back.toString(), Storage.Format.TEXT);
+        assertFalse(BinaryTaskCodec.isBinary(back));
+        assertEquals(lines, Files.readAllLines(back));
+    }
+}
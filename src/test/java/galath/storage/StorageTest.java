@@ -0,0 +1,408 @@
+package galath.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import galath.task.Deadline;
+import galath.task.SortKey;
+import galath.task.Event;
+import galath.task.Task;
+import galath.task.TaskList;
+import galath.task.Todo;
+
+public class StorageTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void load_journalReplayed_matchesMutations() throws Exception {
+        String file = tempDir.resolve("galath.txt").toString();
+        Storage storage = new Storage(file, Storage.Mode.JOURNAL);
+        TaskList tasks = new TaskList(storage.load());
+
+        tasks.addTask(new Todo("read book"));
+        storage.saveChanges(tasks);
+        tasks.addTask(new Deadline("return book", LocalDateTime.of(2024, 12, 20, 18, 0)));
+        storage.saveChanges(tasks);
+        tasks.addTask(new Todo("write essay"));
+        storage.saveChanges(tasks);
+
+        tasks.markTask(1);
+        storage.saveChanges(tasks);
+        tasks.deleteTask(0);
+        storage.saveChanges(tasks);
+        tasks.sortBy(List.of(new SortKey(SortKey.Field.NAME, true)));
+        storage.saveChanges(tasks);
+
+        // Mutations only touch the journal, not the data file
+        assertEquals(0, Files.size(tempDir.resolve("galath.txt")));
+
+        ArrayList<Task> loaded = new Storage(file, Storage.Mode.JOURNAL).load();
+        assertEquals(2, loaded.size());
+        assertEquals("[T][ ] write essay", loaded.get(0).toString());
+        assertEquals("[D][X] return book (by: Dec 20 2024, 6:00PM)", loaded.get(1).toString());
+    }
+
+    @Test
+    public void save_journalMode_truncatesJournal() throws Exception {
+        String file = tempDir.resolve("galath.txt").toString();
+        Storage storage = new Storage(file, Storage.Mode.JOURNAL);
+        TaskList tasks = new TaskList(storage.load());
+        tasks.addTask(new Todo("read book"));
+        storage.saveChanges(tasks);
+        assertTrue(Files.exists(tempDir.resolve("galath.txt.journal")));
+
+        storage.save(tasks.snapshot());
+        assertFalse(Files.exists(tempDir.resolve("galath.txt.journal")));
+        assertEquals(1, new Storage(file, Storage.Mode.JOURNAL).load().size());
+    }
+
+    @Test
+    public void saveChanges_overThreshold_compactsJournalIntoDataFile() throws Exception {
+        String file = tempDir.resolve("galath.txt").toString();
+        Storage storage = new Storage(file, Storage.Mode.JOURNAL);
+        storage.setCompactionThresholds(3, Long.MAX_VALUE);
+        TaskList tasks = new TaskList(storage.load());
+        for (int i = 0; i < 10; i++) {
+            tasks.addTask(new Todo("task " + i));
+            storage.saveChanges(tasks);
+        }
+        storage.awaitCompaction();
+
+        assertTrue(Files.readAllLines(tempDir.resolve("galath.txt")).size() >= 3);
+        assertFalse(Files.exists(tempDir.resolve("galath.txt.journal.old")));
+        ArrayList<Task> loaded = new Storage(file, Storage.Mode.JOURNAL).load();
+        assertEquals(10, loaded.size());
+        assertEquals("[T][ ] task 9", loaded.get(9).toString());
+    }
+
+    @Test
+    public void load_interruptedCompaction_replaysRotatedJournal() throws Exception {
+        Path file = tempDir.resolve("galath.txt");
+        Files.write(file, "T | 0 | read book\n".getBytes());
+        Files.write(tempDir.resolve("galath.txt.journal.old"), "add | T | 0 | write essay\n".getBytes());
+        Files.write(tempDir.resolve("galath.txt.journal"), "done | 1 | 1\n".getBytes());
+        // A partial snapshot must not be trusted while the rotated journal exists
+        Files.write(tempDir.resolve("galath.txt.snapshot"), "T | 0 | read".getBytes());
+
+        Storage storage = new Storage(file.toString(), Storage.Mode.JOURNAL);
+        ArrayList<Task> loaded = storage.load();
+        storage.awaitCompaction();
+
+        assertEquals(2, loaded.size());
+        assertEquals("[T][X] write essay", loaded.get(1).toString());
+        assertEquals(2, new Storage(file.toString(), Storage.Mode.JOURNAL).load().size());
+        assertFalse(Files.exists(tempDir.resolve("galath.txt.journal.old")));
+    }
+
+    @Test
+    public void saveChanges_writeBehind_mergesBurstIntoFewWrites() throws Exception {
+        String file = tempDir.resolve("galath.txt").toString();
+        Storage storage = new Storage(file, Storage.Mode.WRITE_BEHIND);
+        storage.setWriteBehindWindow(200);
+        TaskList tasks = new TaskList(storage.load());
+        for (int i = 0; i < 1000; i++) {
+            tasks.addTask(new Todo("task " + i));
+            storage.saveChanges(tasks);
+        }
+        storage.flush();
+
+        assertTrue(storage.getWriteBehindCount() < 10);
+        assertEquals(1000, new Storage(file).load().size());
+    }
+
+    @Test
+    public void load_fileLargerThanOneChunk_keepsFileOrder() throws Exception {
+        Path file = tempDir.resolve("galath.txt");
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 50000; i++) {
+            content.append(i % 2 == 0 ? "T | 0 | task " : "D | 1 | task ").append(i);
+            content.append(i % 2 == 0 ? "\r\n" : " | 2024-12-20T18:00:00\n");
+        }
+        Files.write(file, content.toString().getBytes());
+
+        ArrayList<Task> loaded = new Storage(file.toString()).load();
+        assertEquals(50000, loaded.size());
+        for (int i = 0; i < loaded.size(); i++) {
+            assertEquals("task " + i, loaded.get(i).getDescription());
+        }
+        assertTrue(loaded.get(49999).getIsDone());
+    }
+
+    @Test
+    public void load_slottedMutations_matchesMutations() throws Exception {
+        String file = tempDir.resolve("galath.txt").toString();
+        Storage storage = new Storage(file, Storage.Mode.SLOTTED);
+        TaskList tasks = new TaskList(storage.load());
+
+        for (int i = 0; i < 3; i++) {
+            tasks.addTask(new Todo("task " + i));
+            storage.saveChanges(tasks);
+        }
+        tasks.markTask(2);
+        storage.saveChanges(tasks);
+        tasks.deleteTask(0);
+        storage.saveChanges(tasks);
+        // Reuses the slot freed by the delete
+        tasks.addTask(new Deadline("return book", LocalDateTime.of(2024, 12, 20, 18, 0)));
+        storage.saveChanges(tasks);
+        tasks.sortDeadlines();
+        storage.saveChanges(tasks);
+        storage.flush();
+
+        ArrayList<Task> loaded = new Storage(file, Storage.Mode.SLOTTED).load();
+        assertEquals(3, loaded.size());
+        assertEquals("[D][ ] return book (by: Dec 20 2024, 6:00PM)", loaded.get(0).toString());
+        assertEquals("[T][ ] task 1", loaded.get(1).toString());
+        assertEquals("[T][X] task 2", loaded.get(2).toString());
+    }
+
+    @Test
+    public void load_slottedFirstUse_seedsFromDataFile() throws Exception {
+        Path file = tempDir.resolve("galath.txt");
+        Files.write(file, "T | 1 | read book\nE | 0 | camp | 2024-12-20T18:00:00 | 2024-12-22T09:30:00\n".getBytes());
+
+        ArrayList<Task> tasks = new Storage(file.toString(), Storage.Mode.SLOTTED).load();
+        assertEquals(2, tasks.size());
+
+        // Later loads read the slot store, not the data file
+        Files.write(file, new byte[0]);
+        ArrayList<Task> loaded = new Storage(file.toString(), Storage.Mode.SLOTTED).load();
+        assertEquals(2, loaded.size());
+        assertTrue(loaded.get(0).getIsDone());
+        assertEquals(tasks.get(1).toString(), loaded.get(1).toString());
+    }
+
+    @Test
+    public void load_otherModeAfterSlotted_writesStoreBackToDataFile() throws Exception {
+        Path file = tempDir.resolve("galath.txt");
+        Storage seeding = new Storage(file.toString(), Storage.Mode.SLOTTED);
+        TaskList seeded = new TaskList(seeding.load());
+        for (int i = 0; i < 5; i++) {
+            seeded.addTask(new Todo("task " + i));
+        }
+        seeding.saveChanges(seeded);
+        seeding.flush();
+
+        // Links read back from the file, then changed at the middle and the tail
+        Storage storage = new Storage(file.toString(), Storage.Mode.SLOTTED);
+        TaskList tasks = new TaskList(storage.load());
+        tasks.deleteTask(2);
+        tasks.deleteTask(3);
+        tasks.markTask(0);
+        tasks.addTask(new Todo("task 5"));
+        storage.saveChanges(tasks);
+        storage.flush();
+        assertEquals(0, Files.size(file));
+
+        ArrayList<Task> loaded = new Storage(file.toString()).load();
+        assertEquals("[[T][X] task 0, [T][ ] task 1, [T][ ] task 3, [T][ ] task 5]", loaded.toString());
+        assertFalse(Files.exists(tempDir.resolve("galath.txt.slots")));
+        assertEquals(loaded.toString(), new Storage(file.toString()).load().toString());
+    }
+
+    @Test
+    public void saveChanges_journalMode_appendsOnlyChanges() throws Exception {
+        String file = tempDir.resolve("galath.txt").toString();
+        Storage storage = new Storage(file, Storage.Mode.JOURNAL);
+        TaskList tasks = new TaskList(storage.load());
+
+        tasks.addTask(new Todo("read book"));
+        tasks.addTask(new Todo("write essay"));
+        storage.saveChanges(tasks);
+        tasks.markTask(1);
+        tasks.deleteTask(0);
+        storage.saveChanges(tasks);
+
+        assertTrue(tasks.getChanges().isEmpty());
+        assertEquals(0, Files.size(tempDir.resolve("galath.txt")));
+        ArrayList<Task> loaded = new Storage(file, Storage.Mode.JOURNAL).load();
+        assertEquals(1, loaded.size());
+        assertEquals("[T][X] write essay", loaded.get(0).toString());
+    }
+
+    @Test
+    public void saveChanges_journalModeBatchDelete_replaysToSameList() throws Exception {
+        String file = tempDir.resolve("galath.txt").toString();
+        Storage storage = new Storage(file, Storage.Mode.JOURNAL);
+        TaskList tasks = new TaskList(storage.load());
+        for (int i = 0; i < 10; i++) {
+            tasks.addTask(new Todo("task " + i));
+        }
+        storage.saveChanges(tasks);
+
+        tasks.setTasksDone(new int[] {4, 5, 6}, true);
+        tasks.deleteTasks(new int[] {0, 3, 4, 9});
+        storage.saveChanges(tasks);
+
+        ArrayList<Task> loaded = new Storage(file, Storage.Mode.JOURNAL).load();
+        assertEquals(tasks.snapshot().toString(), loaded.toString());
+    }
+
+    @Test
+    public void saveChanges_shardedMode_rewritesOnlyTouchedShards() throws Exception {
+        String file = tempDir.resolve("galath.txt").toString();
+        Storage storage = new Storage(file, Storage.Mode.SHARDED);
+        TaskList tasks = new TaskList(storage.load());
+        tasks.addTask(new Deadline("old report", LocalDateTime.of(2023, 1, 10, 9, 0)));
+        tasks.addTask(new Todo("read book"));
+        tasks.addTask(new Event("camp", LocalDateTime.of(2024, 12, 30, 9, 0), LocalDateTime.of(2025, 1, 2, 9, 0)));
+        storage.saveChanges(tasks);
+
+        Path oldShard = tempDir.resolve("galath.txt.shards").resolve("2023-01.txt");
+        Files.setLastModifiedTime(oldShard, FileTime.fromMillis(0));
+        tasks.markTask(1);
+        tasks.addTask(new Todo("write essay"));
+        storage.saveChanges(tasks);
+
+        assertEquals(0, Files.getLastModifiedTime(oldShard).toMillis());
+        ArrayList<Task> loaded = new Storage(file, Storage.Mode.SHARDED).load();
+        assertEquals(4, loaded.size());
+        assertEquals("old report", loaded.get(0).getDescription());
+        assertTrue(loaded.get(1).getIsDone());
+        assertEquals("write essay", loaded.get(3).getDescription());
+    }
+
+    @Test
+    public void saveChanges_shardedMode_rewritesManifestOnlyWhenShardsChange() throws Exception {
+        String file = tempDir.resolve("galath.txt").toString();
+        Storage storage = new Storage(file, Storage.Mode.SHARDED);
+        TaskList tasks = new TaskList(storage.load());
+        tasks.addTask(new Deadline("old report", LocalDateTime.of(2023, 1, 10, 9, 0)));
+        tasks.addTask(new Todo("read book"));
+        storage.saveChanges(tasks);
+
+        Path shards = tempDir.resolve("galath.txt.shards");
+        Path manifest = shards.resolve("manifest");
+        Files.setLastModifiedTime(manifest, FileTime.fromMillis(0));
+        tasks.markTask(1);
+        tasks.addTask(new Todo("write essay"));
+        storage.saveChanges(tasks);
+        assertEquals(0, Files.getLastModifiedTime(manifest).toMillis());
+
+        tasks.deleteTask(0);
+        storage.saveChanges(tasks);
+        assertFalse(Files.exists(shards.resolve("2023-01.txt")));
+        assertEquals(List.of("todo"), Files.readAllLines(manifest));
+        assertEquals(2, new Storage(file, Storage.Mode.SHARDED).load().size());
+    }
+
+    @Test
+    public void load_checksummedTornTail_truncatesOnlyTail() throws Exception {
+        Path file = tempDir.resolve("galath.txt");
+        Storage storage = new Storage(file.toString(), Storage.Mode.SNAPSHOT, Storage.Format.CHECKSUMMED);
+        ArrayList<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            tasks.add(new Todo("task " + i));
+        }
+        storage.save(tasks);
+        long intactSize = Files.size(file);
+        Files.write(file, "1234abcd T | 0 | half writ".getBytes(), StandardOpenOption.APPEND);
+
+        ArrayList<Task> loaded = storage.load();
+        assertEquals(3000, loaded.size());
+        assertEquals(intactSize, Files.size(file));
+        assertTrue(storage.scrub().getProblems().isEmpty());
+        assertEquals(3000, storage.scrub().getRecordCount());
+    }
+
+    @Test
+    public void save_checksummedCrashDuringRewrite_keepsPreviousFile() throws Exception {
+        Path file = tempDir.resolve("galath.txt");
+        Storage storage = new Storage(file.toString(), Storage.Mode.SNAPSHOT, Storage.Format.CHECKSUMMED);
+        ArrayList<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            tasks.add(new Todo("task " + i));
+        }
+        storage.save(tasks);
+        assertFalse(Files.exists(tempDir.resolve("galath.txt.tmp")));
+
+        // A rewrite that stopped halfway leaves only a torn temporary file
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(tempDir.resolve("galath.txt.tmp"), Arrays.copyOf(bytes, bytes.length / 2));
+
+        assertEquals(3000, storage.load().size());
+        assertTrue(storage.scrub().getProblems().isEmpty());
+    }
+
+    @Test
+    public void load_checksummedTruncatedMidFile_keepsRecordsBeforeTear() throws Exception {
+        Path file = tempDir.resolve("galath.txt");
+        Storage storage = new Storage(file.toString(), Storage.Mode.SNAPSHOT, Storage.Format.CHECKSUMMED);
+        ArrayList<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            tasks.add(new Todo("task " + i));
+        }
+        storage.save(tasks);
+
+        byte[] bytes = Files.readAllBytes(file);
+        byte[] torn = Arrays.copyOf(bytes, bytes.length / 2);
+        Files.write(file, torn);
+        String[] lines = new String(torn).split("\n", -1);
+        int completeRecords = 0;
+        for (int i = 0; i < lines.length - 1; i++) {
+            if (!lines[i].startsWith("#")) {
+                completeRecords++;
+            }
+        }
+
+        ArrayList<Task> loaded = storage.load();
+        assertEquals(completeRecords, loaded.size());
+        assertEquals("task " + (completeRecords - 1), loaded.get(completeRecords - 1).getDescription());
+        assertTrue(storage.scrub().getProblems().isEmpty());
+    }
+
+    @Test
+    public void load_binaryTornTail_keepsTasksBeforeIt() throws Exception {
+        Path file = tempDir.resolve("galath.txt");
+        Storage storage = new Storage(file.toString(), Storage.Mode.SNAPSHOT, Storage.Format.BINARY);
+        ArrayList<Task> tasks = new ArrayList<>();
+        tasks.add(new Todo("read book"));
+        tasks.add(new Deadline("return book", LocalDateTime.of(2024, 12, 20, 18, 0)));
+        tasks.add(new Todo("write essay"));
+        storage.save(tasks);
+        assertFalse(Files.exists(tempDir.resolve("galath.txt.tmp")));
+
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 4));
+
+        ArrayList<Task> loaded = storage.load();
+        assertEquals(2, loaded.size());
+        assertEquals("return book", loaded.get(1).getDescription());
+    }
+
+    @Test
+    public void scrub_corruptedRecord_reportedAndSkippedOnLoad() throws Exception {
+        Path file = tempDir.resolve("galath.txt");
+        Storage storage = new Storage(file.toString(), Storage.Mode.SNAPSHOT, Storage.Format.CHECKSUMMED);
+        ArrayList<Task> tasks = new ArrayList<>();
+        tasks.add(new Todo("read book"));
+        tasks.add(new Todo("write essay"));
+        tasks.add(new Todo("cook dinner"));
+        storage.save(tasks);
+
+        String content = new String(Files.readAllBytes(file)).replace("write essay", "wrote essay");
+        Files.write(file, content.getBytes());
+
+        ScrubReport report = storage.scrub();
+        assertTrue(report.isChecksummed());
+        assertEquals(1, report.getProblems().size());
+        assertTrue(report.getProblems().get(0).startsWith("line 3"));
+        ArrayList<Task> loaded = storage.load();
+        assertEquals(2, loaded.size());
+        assertEquals("cook dinner", loaded.get(1).getDescription());
+    }
+}
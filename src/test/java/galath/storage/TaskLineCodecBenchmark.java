@@ -0,0 +1,129 @@
+package galath.storage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+
+import galath.task.Deadline;
+import galath.task.Event;
+import galath.task.Task;
+import galath.task.Todo;
+
+/**
+ * Compares the task line codec with the previous regex split and formatter based code.
+ * Run the main method directly; it is not part of the test suite.
+ */
+public class TaskLineCodecBenchmark {
+    private static final DateTimeFormatter STORAGE_FORMAT = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+    private static final int TASK_COUNT = 300_000;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws IOException {
+        ArrayList<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < TASK_COUNT; i++) {
+            LocalDateTime time = LocalDateTime.of(2024, 1 + i % 12, 1 + i % 28, i % 24, i % 60);
+            switch (i % 3) {
+                case 0:
+                    tasks.add(new Todo("buy groceries " + i));
+                    break;
+                case 1:
+                    tasks.add(new Deadline("submit report " + i, time));
+                    break;
+                default:
+                    tasks.add(new Event("project meeting " + i, time, time.plusHours(2)));
+                    break;
+            }
+        }
+
+        ArrayList<String> lines = new ArrayList<>();
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        TaskLineCodec codec = new TaskLineCodec();
+        for (Task task : tasks) {
+            lines.add(legacyEncode(task));
+            codec.encode(task);
+            codec.appendLineSeparator();
+        }
+        codec.writeTo(file);
+        byte[] bytes = file.toByteArray();
+
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            int count = 0;
+            for (String line : lines) {
+                count += legacyDecode(line) == null ? 0 : 1;
+            }
+            long legacyDecode = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            int lineStart = 0;
+            for (int i = 0; i < bytes.length; i++) {
+                if (bytes[i] == '\n') {
+                    count += TaskLineCodec.decode(bytes, lineStart, i) == null ? 0 : 1;
+                    lineStart = i + 1;
+                }
+            }
+            long codecDecode = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            ByteArrayOutputStream legacyOut = new ByteArrayOutputStream(bytes.length);
+            for (Task task : tasks) {
+                legacyOut.write((legacyEncode(task) + System.lineSeparator()).getBytes(StandardCharsets.UTF_8));
+            }
+            long legacyEncode = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            ByteArrayOutputStream codecOut = new ByteArrayOutputStream(bytes.length);
+            for (Task task : tasks) {
+                codec.encode(task);
+                codec.appendLineSeparator();
+                if (codec.length() >= 64 * 1024) {
+                    codec.writeTo(codecOut);
+                }
+            }
+            codec.writeTo(codecOut);
+            long codecEncode = System.nanoTime() - start;
+
+            System.out.printf("round %d: decode legacy %d ms, codec %d ms; encode legacy %d ms, codec %d ms (%d)%n",
+                    round, legacyDecode / 1_000_000, codecDecode / 1_000_000,
+                    legacyEncode / 1_000_000, codecEncode / 1_000_000, count);
+        }
+    }
+
+    private static Task legacyDecode(String line) {
+        String[] parts = line.split(" \\| ");
+        boolean isDone = parts[1].equals("1");
+        Task task;
+        switch (parts[0]) {
+            case "T":
+                task = new Todo(parts[2]);
+                break;
+            case "D":
+                task = new Deadline(parts[2], LocalDateTime.parse(parts[3], STORAGE_FORMAT));
+                break;
+            default:
+                task = new Event(parts[2], LocalDateTime.parse(parts[3], STORAGE_FORMAT),
+                        LocalDateTime.parse(parts[4], STORAGE_FORMAT));
+                break;
+        }
+        if (isDone) {
+            task.markAsDone();
+        }
+        return task;
+    }
+
+    private static String legacyEncode(Task task) {
+        String isDone = task.getIsDone() ? "1" : "0";
+        if (task instanceof Todo) {
+            return "T | " + isDone + " | " + task.getDescription();
+        } else if (task instanceof Deadline) {
+            return "D | " + isDone + " | " + task.getDescription() + " | "
+                    + ((Deadline) task).getBy().format(STORAGE_FORMAT);
+        }
+        Event event = (Event) task;
+        return "E | " + isDone + " | " + task.getDescription() + " | " + event.getFrom().format(STORAGE_FORMAT)
+                + " | " + event.getTo().format(STORAGE_FORMAT);
+    }
+}
@@ -0,0 +1,65 @@
+package galath.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+import org.junit.jupiter.api.Test;
+
+import galath.task.Deadline;
+import galath.task.Event;
+import galath.task.Task;
+import galath.task.Todo;
+
+public class TaskLineCodecTest {
+    @Test
+    public void encode_matchesFormatterOutput() {
+        LocalDateTime by = LocalDateTime.of(2024, 12, 31, 23, 59);
+        LocalDateTime withNanos = LocalDateTime.of(2024, 12, 25, 23, 59, 59, 999_999_999);
+        LocalDateTime farFuture = LocalDateTime.of(12024, 1, 2, 3, 4, 5);
+        Task done = new Todo("party prep 🎉 café");
+        done.markAsDone();
+
+        assertEquals("T | 1 | party prep 🎉 café", TaskLineCodec.encodeToString(done));
+        assertEquals("D | 0 | new year | 2024-12-31T23:59:00",
+                TaskLineCodec.encodeToString(new Deadline("new year", by)));
+        assertEquals("E | 0 | late | " + withNanos.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME)
+                        + " | " + farFuture.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME),
+                TaskLineCodec.encodeToString(new Event("late", withNanos, farFuture)));
+    }
+
+    @Test
+    public void decode_validLines_roundTrip() {
+        String[] lines = {
+            "T | 0 | buy groceries 🛒",
+            "D | 1 | report (final version) | 2024-12-25T14:30:00",
+            "E | 0 | multi day | 2024-12-25T00:00:00 | 2024-12-30T00:00:00",
+            "E | 0 | late | 2024-12-25T00:00:00 | 2024-12-25T23:59:59.999999999",
+            "T | 0 | with id | 42",
+            "D | 1 | with id | 2024-12-25T14:30:00 | 9000000000",
+        };
+        for (String line : lines) {
+            assertEquals(line, TaskLineCodec.encodeToString(TaskLineCodec.decode(line)));
+        }
+        assertTrue(TaskLineCodec.decode(lines[1]).getIsDone());
+        assertEquals(9000000000L, TaskLineCodec.decode(lines[5]).getId());
+    }
+
+    @Test
+    public void decode_invalidLines_returnsNull() {
+        assertNull(TaskLineCodec.decode("   "));
+        assertNull(TaskLineCodec.decode("T | 0"));
+        assertNull(TaskLineCodec.decode("X | 0 | unknown type"));
+        assertNull(TaskLineCodec.decode("D | 0 | missing date"));
+        assertNull(TaskLineCodec.decode("D | 0 | bad date | 2024-02-30T00:00:00"));
+        assertNull(TaskLineCodec.decode("E | 0 | missing end | 2024-12-25T00:00:00"));
+    }
+
+    @Test
+    public void decode_extraFields_ignoredLikeSplit() {
+        assertEquals("task with", TaskLineCodec.decode("T | 0 | task with | pipe").getDescription());
+    }
+}
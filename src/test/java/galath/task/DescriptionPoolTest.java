@@ -0,0 +1,39 @@
+package galath.task;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class DescriptionPoolTest {
+    @Test
+    public void share_equalBytes_returnsFirstArray() {
+        DescriptionPool pool = new DescriptionPool();
+        byte[] first = "return book".getBytes(StandardCharsets.UTF_8);
+
+        assertSame(first, pool.share(first));
+        assertSame(first, pool.share("return book".getBytes(StandardCharsets.UTF_8)));
+        assertEquals(1, pool.size());
+    }
+
+    @Test
+    public void rebuild_afterDeletes_keepsOnlyRemainingDescriptions() {
+        DescriptionPool pool = new DescriptionPool();
+        Task kept = new Todo("café au lait");
+        Task deleted = new Todo("old report");
+        kept.shareDescription(pool.share(kept.getDescriptionBytes()));
+        deleted.shareDescription(pool.share(deleted.getDescriptionBytes()));
+
+        pool.onDelete();
+        assertTrue(pool.onDelete());
+        pool.rebuild(List.of(kept));
+
+        assertEquals(1, pool.size());
+        assertSame(kept.getDescriptionBytes(), pool.share("café au lait".getBytes(StandardCharsets.UTF_8)));
+        assertEquals("café au lait", kept.getDescription());
+    }
+}
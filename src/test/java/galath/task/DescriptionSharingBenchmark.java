@@ -0,0 +1,59 @@
+package galath.task;
+
+import java.util.ArrayList;
+
+/**
+ * Measures the heap taken by a large list of todos whose descriptions repeat, as
+ * loaded from a file where every task has its own description, then with the
+ * descriptions shared through a DescriptionPool, then held by a TaskList, which
+ * shares them the same way but also keeps its indexes and undo history.
+ * Run the main method directly with a large heap, e.g. -Xmx3g; it is not part of
+ * the test suite.
+ */
+public class DescriptionSharingBenchmark {
+    private static final int TASK_COUNT = 1_000_000;
+    private static final int DISTINCT_COUNT = 10_000;
+
+    public static void main(String[] args) {
+        long before = usedHeap();
+        ArrayList<Task> loaded = createTasks();
+        report("Own copies", usedHeap() - before);
+        loaded = null;
+
+        before = usedHeap();
+        ArrayList<Task> pooled = createTasks();
+        DescriptionPool pool = new DescriptionPool();
+        for (Task task : pooled) {
+            task.shareDescription(pool.share(task.getDescriptionBytes()));
+        }
+        report("Pooled", usedHeap() - before);
+        pooled = null;
+        pool = null;
+
+        before = usedHeap();
+        TaskList shared = new TaskList(createTasks());
+        report("In a TaskList", usedHeap() - before);
+        System.out.println(shared.size() + " tasks, " + DISTINCT_COUNT + " distinct descriptions");
+    }
+
+    private static ArrayList<Task> createTasks() {
+        ArrayList<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < TASK_COUNT; i++) {
+            // A new description for each task, as a loader makes
+            tasks.add(new Todo("return library book " + (i * 7919 % DISTINCT_COUNT)));
+        }
+        return tasks;
+    }
+
+    private static void report(String label, long bytes) {
+        System.out.printf("%-15s %7.1f MB, %5.1f bytes per task%n", label, bytes / 1e6, (double) bytes / TASK_COUNT);
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
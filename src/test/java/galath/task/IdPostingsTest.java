@@ -0,0 +1,29 @@
+package galath.task;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+
+public class IdPostingsTest {
+    @Test
+    public void remove_randomOperations_staysSortedAndMatchesTreeSet() {
+        IdPostings postings = new IdPostings();
+        TreeSet<Long> expected = new TreeSet<>();
+        Random random = new Random(11);
+        for (int i = 0; i < 20000; i++) {
+            long id = 1 + random.nextInt(3000);
+            if (random.nextInt(3) > 0) {
+                if (expected.add(id)) {
+                    postings.add(id);
+                }
+            } else if (expected.remove(id)) {
+                postings.remove(id);
+            }
+        }
+
+        assertArrayEquals(expected.stream().mapToLong(Long::longValue).toArray(), postings.toSortedArray());
+    }
+}
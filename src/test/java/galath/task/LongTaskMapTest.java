@@ -0,0 +1,35 @@
+package galath.task;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.HashMap;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class LongTaskMapTest {
+    @Test
+    public void remove_randomOperations_matchesHashMap() {
+        LongTaskMap map = new LongTaskMap();
+        HashMap<Long, Task> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 20000; i++) {
+            long key = 1 + random.nextInt(500);
+            if (random.nextBoolean()) {
+                Task task = new Todo("task " + i);
+                map.put(key, task);
+                expected.put(key, task);
+            } else {
+                assertSame(expected.remove(key), map.remove(key));
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        for (long key = 1; key <= 500; key++) {
+            assertSame(expected.get(key), map.get(key));
+        }
+        assertNull(map.get(501));
+    }
+}
@@ -0,0 +1,69 @@
+package galath.task;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Times sorts and unindexed scans on one thread and in parallel at growing list sizes,
+ * to find the size from which the parallel path wins on this machine. Two-letter
+ * keywords are used because the trigram index does not answer them. Pass the result
+ * to the app with -Dgalath.parallelThreshold.
+ * Run the main method directly; it is not part of the test suite.
+ */
+public class TaskListParallelBenchmark {
+    private static final int[] SIZES = {10_000, 50_000, 100_000, 200_000, 500_000, 1_000_000};
+    private static final int ROUNDS = 5;
+    private static final List<SortKey> KEYS = List.of(new SortKey(SortKey.Field.TYPE, false),
+            new SortKey(SortKey.Field.DATE, true), new SortKey(SortKey.Field.NAME, false));
+
+    public static void main(String[] args) {
+        System.out.println("Cores: " + Runtime.getRuntime().availableProcessors());
+        System.out.printf("%10s %12s %12s %12s %12s%n", "tasks", "sort seq ms", "sort par ms", "find seq ms", "find par ms");
+        for (int size : SIZES) {
+            ArrayList<Task> tasks = createTasks(size);
+            TaskList sequential = new TaskList(new ArrayList<>(tasks));
+            sequential.setParallelThreshold(Integer.MAX_VALUE);
+            TaskList parallel = new TaskList(new ArrayList<>(tasks));
+            parallel.setParallelThreshold(1);
+
+            System.out.printf("%10d %12.1f %12.1f %12.1f %12.1f%n", size,
+                    time(() -> TaskSorter.sort(tasks, KEYS, false)),
+                    time(() -> TaskSorter.sort(tasks, KEYS, true)),
+                    time(() -> sequential.findTasks("99")),
+                    time(() -> parallel.findTasks("99")));
+        }
+    }
+
+    private static ArrayList<Task> createTasks(int size) {
+        ArrayList<Task> tasks = new ArrayList<>();
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 0, 0);
+        for (int i = 0; i < size; i++) {
+            LocalDateTime time = base.plusMinutes((i * 7919L) % 500_000);
+            switch (i % 3) {
+                case 0:
+                    tasks.add(new Todo("buy groceries " + (i * 31 % size)));
+                    break;
+                case 1:
+                    tasks.add(new Deadline("submit report " + (i * 17 % size), time));
+                    break;
+                default:
+                    tasks.add(new Event("project meeting " + (i * 13 % size), time, time.plusHours(2)));
+                    break;
+            }
+        }
+        return tasks;
+    }
+
+    /** Returns the best time of several rounds, after one warm-up round. */
+    private static double time(Runnable action) {
+        action.run();
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            action.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best / 1e6;
+    }
+}
@@ -0,0 +1,451 @@
+package galath.task;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import galath.exception.GalathException;
+
+public class TaskListTest {
+    @Test
+    public void getChanges_mutations_recordedInOrder() throws Exception {
+        TaskList tasks = new TaskList();
+        tasks.addTask(new Todo("b"));
+        tasks.addTask(new Todo("a"));
+        tasks.markTask(0);
+        tasks.markTask(0); // Already done, nothing changes
+        tasks.sortByName();
+        tasks.deleteTask(1);
+
+        List<ChangeSet.Change> changes = tasks.getChanges().getChanges();
+        assertEquals(5, changes.size());
+        assertEquals(ChangeSet.Kind.ADD, changes.get(0).getKind());
+        assertEquals(1, changes.get(1).getIndex());
+        assertEquals(ChangeSet.Kind.UPDATE, changes.get(2).getKind());
+        assertTrue(changes.get(2).getIsDone());
+        assertArrayEquals(new int[] {1, 0}, changes.get(3).getPreviousIndices());
+        assertEquals(ChangeSet.Kind.DELETE, changes.get(4).getKind());
+        assertEquals("b", changes.get(4).getTask().getDescription());
+    }
+
+    @Test
+    public void getChanges_overLimit_markedFull() {
+        TaskList tasks = new TaskList(new ArrayList<>());
+        for (int i = 0; i < 10001; i++) {
+            tasks.addTask(new Todo("task " + i));
+        }
+
+        assertTrue(tasks.getChanges().isFull());
+        assertTrue(tasks.getChanges().getChanges().isEmpty());
+    }
+
+    @Test
+    public void markTaskById_afterSort_reachesSameTask() throws Exception {
+        ArrayList<Task> loaded = new ArrayList<>();
+        loaded.add(new Todo("b"));
+        loaded.add(new Todo("a"));
+        loaded.get(0).setId(7);
+        TaskList tasks = new TaskList(loaded);
+        long idOfA = tasks.getTask(1).getId();
+        assertEquals(8, idOfA);
+
+        tasks.sortByName();
+        tasks.markTaskById(idOfA);
+        assertTrue(tasks.getTask(0).getIsDone());
+        assertEquals("b", tasks.deleteTaskById(7).getDescription());
+        assertThrows(GalathException.class, () -> tasks.getTaskById(7));
+    }
+
+    @Test
+    public void findTasksByWord_afterAddDeleteAndSort_matchesWholeWordsInListOrder() throws Exception {
+        TaskList tasks = new TaskList();
+        tasks.addTask(new Todo("return Book"));
+        tasks.addTask(new Todo("notebook shopping"));
+        assertEquals(1, tasks.findTasksByWord("book").size());
+
+        // The index is kept up to date once built
+        tasks.addTask(new Todo("book a table, read book"));
+        tasks.deleteTask(0);
+        tasks.addTask(new Todo("a book to read"));
+        tasks.sortByName();
+
+        ArrayList<Task> matches = tasks.findTasksByWord("READ book");
+        assertEquals(2, matches.size());
+        assertEquals("a book to read", matches.get(0).getDescription());
+        assertEquals("book a table, read book", matches.get(1).getDescription());
+        assertTrue(tasks.findTasksByWord("boo").isEmpty());
+    }
+
+    @Test
+    public void findTasks_trigramIndex_matchesSubstringScan() throws Exception {
+        TaskList tasks = new TaskList();
+        Random random = new Random(7);
+        String[] words = {"Book", "notebook", "bookkeeping", "read", "Ready", "bread", "aaaa", "café"};
+        String[] keywords = {"boo", "BOOK", "ook k", "rea", "aaa", "read", "fé", "caf", "bo", "x", "eping"};
+        for (int round = 0; round < 300; round++) {
+            tasks.addTask(new Todo(words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)]));
+            if (random.nextInt(4) == 0) {
+                tasks.deleteTask(random.nextInt(tasks.size()));
+            }
+            if (round == 150) {
+                tasks.sortByName();
+            }
+            String keyword = keywords[random.nextInt(keywords.length)];
+            ArrayList<Task> expected = new ArrayList<>();
+            for (Task task : tasks.snapshot()) {
+                if (task.getDescription().toLowerCase().contains(keyword.toLowerCase())) {
+                    expected.add(task);
+                }
+            }
+            assertEquals(expected, tasks.findTasks(keyword));
+        }
+    }
+
+    @Test
+    public void getTasksOnDate_timeIndex_matchesScan() throws Exception {
+        TaskList tasks = new TaskList();
+        Random random = new Random(11);
+        LocalDateTime base = LocalDateTime.of(2024, 12, 1, 9, 0);
+        for (int round = 0; round < 400; round++) {
+            LocalDateTime start = base.plusHours(random.nextInt(24 * 40));
+            if (random.nextBoolean()) {
+                tasks.addTask(new Deadline("deadline " + round, start));
+            } else {
+                tasks.addTask(new Event("event " + round, start, start.plusHours(random.nextInt(24 * 5))));
+            }
+            if (random.nextInt(3) == 0) {
+                tasks.deleteTask(random.nextInt(tasks.size()));
+            }
+            if (round % 100 == 50) {
+                tasks.sortEvents();
+            }
+
+            LocalDate date = base.toLocalDate().plusDays(random.nextInt(45));
+            ArrayList<Task> expected = new ArrayList<>();
+            for (Task task : tasks.snapshot()) {
+                boolean isDeadlineOn = task instanceof Deadline
+                        && ((Deadline) task).getBy().toLocalDate().equals(date);
+                boolean isEventOn = task instanceof Event
+                        && !date.isBefore(((Event) task).getFrom().toLocalDate())
+                        && !date.isAfter(((Event) task).getTo().toLocalDate());
+                if (isDeadlineOn || isEventOn) {
+                    expected.add(task);
+                }
+            }
+            assertEquals(expected, tasks.getTasksOnDate(date));
+        }
+    }
+
+    @Test
+    public void forEachTaskBetween_mixedTasks_chronologicalAndComplete() throws Exception {
+        TaskList tasks = new TaskList();
+        LocalDateTime base = LocalDateTime.of(2024, 12, 1, 0, 0);
+        Random random = new Random(5);
+        for (int i = 0; i < 300; i++) {
+            LocalDateTime start = base.plusMinutes(random.nextInt(60 * 24 * 30));
+            if (random.nextBoolean()) {
+                tasks.addTask(new Deadline("deadline " + i, start));
+            } else {
+                tasks.addTask(new Event("event " + i, start, start.plusHours(random.nextInt(24 * 6))));
+            }
+        }
+        tasks.addTask(new Todo("no date"));
+        LocalDate from = LocalDate.of(2024, 12, 10);
+        LocalDate to = LocalDate.of(2024, 12, 14);
+
+        ArrayList<Task> expected = new ArrayList<>();
+        for (Task task : tasks.snapshot()) {
+            LocalDateTime start = task instanceof Deadline ? ((Deadline) task).getBy()
+                    : task instanceof Event ? ((Event) task).getFrom() : null;
+            LocalDateTime end = task instanceof Event ? ((Event) task).getTo() : start;
+            if (start != null && !start.toLocalDate().isAfter(to) && !end.toLocalDate().isBefore(from)) {
+                expected.add(task);
+            }
+        }
+        expected.sort((a, b) -> (a instanceof Deadline ? ((Deadline) a).getBy() : ((Event) a).getFrom())
+                .compareTo(b instanceof Deadline ? ((Deadline) b).getBy() : ((Event) b).getFrom()));
+
+        ArrayList<Task> actual = new ArrayList<>();
+        tasks.forEachTaskBetween(from, to, actual::add);
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void sortBy_compositeKeys_matchesComparator() throws Exception {
+        TaskList tasks = new TaskList();
+        LocalDateTime base = LocalDateTime.of(2024, 12, 1, 0, 0);
+        Random random = new Random(9);
+        String[] names = {"Alpha", "alpha", "beta", "alphabet", "b", "\u00e9t\u00e9"};
+        for (int i = 0; i < 500; i++) {
+            String name = names[random.nextInt(names.length)];
+            LocalDateTime start = base.plusHours(random.nextInt(10));
+            switch (random.nextInt(3)) {
+                case 0:
+                    tasks.addTask(new Todo(name));
+                    break;
+                case 1:
+                    tasks.addTask(new Deadline(name, start));
+                    break;
+                default:
+                    tasks.addTask(new Event(name, start, start.plusHours(1)));
+                    break;
+            }
+        }
+        ArrayList<Task> expected = new ArrayList<>(tasks.snapshot());
+        Comparator<Task> byType = Comparator.comparingInt(t -> t instanceof Todo ? 0 : t instanceof Deadline ? 1 : 2);
+        Comparator<Task> byDateDesc = (a, b) -> {
+            LocalDateTime x = a instanceof Deadline ? ((Deadline) a).getBy()
+                    : a instanceof Event ? ((Event) a).getFrom() : null;
+            LocalDateTime y = b instanceof Deadline ? ((Deadline) b).getBy()
+                    : b instanceof Event ? ((Event) b).getFrom() : null;
+            return x == null || y == null ? Boolean.compare(x == null, y == null) : y.compareTo(x);
+        };
+        expected.sort(byType.thenComparing(byDateDesc)
+                .thenComparing(t -> t.getDescription().toLowerCase()));
+
+        tasks.sortBy(List.of(new SortKey(SortKey.Field.TYPE, false),
+                new SortKey(SortKey.Field.DATE, true),
+                new SortKey(SortKey.Field.NAME, false)));
+
+        assertEquals(expected, tasks.snapshot());
+        for (int i = 0; i < tasks.size(); i++) {
+            assertEquals(i, tasks.getTask(i).getOrderKey());
+        }
+    }
+
+    @Test
+    public void getTasksInOrder_afterAddAndDelete_matchesSortWithoutReordering() throws Exception {
+        TaskList tasks = new TaskList();
+        LocalDateTime base = LocalDateTime.of(2024, 12, 1, 0, 0);
+        Random random = new Random(11);
+        for (int i = 0; i < 200; i++) {
+            tasks.addTask(new Deadline("deadline " + random.nextInt(50), base.plusHours(random.nextInt(100))));
+            tasks.addTask(new Todo("todo " + random.nextInt(50)));
+        }
+        tasks.getTasksInOrder(SortKey.Field.DEADLINE); // Build the view before the changes below
+        for (int i = 0; i < 50; i++) {
+            tasks.deleteTask(random.nextInt(tasks.size()));
+            tasks.addTask(new Deadline("late " + i, base.plusHours(random.nextInt(100))));
+        }
+        ArrayList<Task> listOrder = new ArrayList<>(tasks.snapshot());
+        tasks.getChanges().clear();
+
+        ArrayList<Task> view = tasks.getTasksInOrder(SortKey.Field.DEADLINE);
+
+        assertEquals(listOrder, tasks.snapshot());
+        assertTrue(tasks.getChanges().isEmpty());
+        ArrayList<Task> expected = new ArrayList<>();
+        for (Task task : listOrder) {
+            if (task instanceof Deadline) {
+                expected.add(task);
+            }
+        }
+        expected.sort(Comparator.comparing((Task t) -> ((Deadline) t).getBy()).thenComparingLong(Task::getId));
+        assertEquals(expected, view);
+    }
+
+    @Test
+    public void sort_parallel_matchesSequential() {
+        ArrayList<Task> tasks = new ArrayList<>();
+        LocalDateTime base = LocalDateTime.of(2024, 12, 1, 0, 0);
+        Random random = new Random(13);
+        for (int i = 0; i < 50_000; i++) {
+            String name = "task " + random.nextInt(1000);
+            if (random.nextBoolean()) {
+                tasks.add(new Todo(name));
+            } else {
+                tasks.add(new Deadline(name, base.plusMinutes(random.nextInt(5000))));
+            }
+        }
+        List<SortKey> keys = List.of(new SortKey(SortKey.Field.DEADLINE, true),
+                new SortKey(SortKey.Field.NAME, false));
+
+        assertArrayEquals(TaskSorter.sort(tasks, keys, false), TaskSorter.sort(tasks, keys, true));
+    }
+
+    @Test
+    public void forEachTaskWithStatus_afterMarksDeletesAndSort_matchesScan() throws Exception {
+        TaskList tasks = new TaskList();
+        Random random = new Random(17);
+        for (int i = 0; i < 300; i++) {
+            tasks.addTask(new Todo("task " + random.nextInt(100)));
+            if (random.nextInt(3) == 0) {
+                tasks.markTask(random.nextInt(tasks.size()));
+            }
+            if (random.nextInt(4) == 0) {
+                tasks.deleteTask(random.nextInt(tasks.size()));
+            }
+            if (random.nextInt(5) == 0) {
+                tasks.unmarkTask(random.nextInt(tasks.size()));
+            }
+        }
+        tasks.sortByName();
+        tasks.deleteTask(0);
+
+        ArrayList<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < tasks.size(); i++) {
+            if (tasks.getTask(i).getIsDone()) {
+                expected.add(i);
+            }
+        }
+        ArrayList<Integer> actual = new ArrayList<>();
+        tasks.forEachTaskWithStatus(true, (task, i) -> actual.add(i));
+
+        assertEquals(expected, actual);
+        assertEquals(expected.size(), tasks.getDoneCount());
+        assertEquals(tasks.size() - expected.size(), tasks.getPendingCount());
+        assertEquals(tasks.size(), tasks.getTypeCount(Todo.class));
+    }
+
+    @Test
+    public void addTask_repeatedDescription_sharesOneByteArray() {
+        ArrayList<Task> loaded = new ArrayList<>();
+        loaded.add(new Todo(new String("return book")));
+        TaskList tasks = new TaskList(loaded);
+
+        tasks.addTask(new Todo(new String("return book")));
+
+        assertTrue(tasks.snapshot().get(0).getDescriptionBytes() == tasks.snapshot().get(1).getDescriptionBytes());
+        assertEquals("return book", tasks.snapshot().get(1).getDescription());
+    }
+
+    @Test
+    public void snapshot_duringSorts_alwaysFullySorted() throws Exception {
+        TaskList tasks = new TaskList();
+        for (int i = 0; i < 2000; i++) {
+            tasks.addTask(new Todo(String.format("task %04d", i)));
+        }
+        List<SortKey> ascending = List.of(new SortKey(SortKey.Field.NAME, false));
+        List<SortKey> descending = List.of(new SortKey(SortKey.Field.NAME, true));
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < 200; i++) {
+                tasks.sortBy(i % 2 == 0 ? descending : ascending);
+            }
+        });
+        writer.start();
+
+        while (writer.isAlive()) {
+            List<Task> snapshot = tasks.snapshot();
+            int direction = snapshot.get(0).getDescription().compareTo(snapshot.get(1).getDescription());
+            for (int i = 1; i < snapshot.size(); i++) {
+                int step = snapshot.get(i - 1).getDescription().compareTo(snapshot.get(i).getDescription());
+                assertTrue(Integer.signum(step) == Integer.signum(direction), "Snapshot should not be half sorted");
+            }
+            assertEquals(2000, tasks.findTasks("task").size());
+        }
+        writer.join();
+    }
+
+    @Test
+    public void undo_deleteMarkAndSort_restoresEachVersion() throws Exception {
+        TaskList tasks = new TaskList();
+        tasks.addTask(new Todo("c"));
+        tasks.addTask(new Todo("a"));
+        tasks.addTask(new Todo("b"));
+        tasks.markTask(1);
+        tasks.sortByName();
+        Task deleted = tasks.deleteTask(0);
+        tasks.getChanges().clear();
+
+        assertTrue(tasks.undo());
+        assertEquals("[a, b, c]", descriptionsOf(tasks));
+        assertTrue(tasks.snapshot().get(0) == deleted);
+        assertTrue(tasks.getChanges().isFull());
+        assertTrue(tasks.undo());
+        assertEquals("[c, a, b]", descriptionsOf(tasks));
+        assertEquals(1, tasks.getDoneCount());
+        assertTrue(tasks.undo());
+        assertEquals(0, tasks.getDoneCount());
+        assertEquals(1, tasks.findTasks("a").size());
+
+        assertTrue(tasks.redo());
+        assertTrue(tasks.redo());
+        assertEquals("[a, b, c]", descriptionsOf(tasks));
+        assertTrue(tasks.snapshot().get(0).getIsDone());
+
+        tasks.deleteTask(2);
+        assertTrue(!tasks.redo(), "A new change should discard the undone ones");
+        for (int i = 0; i < 6; i++) {
+            tasks.undo();
+        }
+        assertEquals(0, tasks.size());
+        assertTrue(!tasks.undo());
+    }
+
+    @Test
+    public void deleteTasks_manyPositions_matchesOneByOneAndUndoesAtOnce() throws Exception {
+        TaskList batch = new TaskList();
+        TaskList single = new TaskList();
+        for (int i = 0; i < 200; i++) {
+            batch.addTask(new Todo("task " + i));
+            single.addTask(new Todo("task " + i));
+        }
+        batch.setTasksDone(new int[] {1, 2, 3, 150}, true);
+        int[] indices = {0, 2, 3, 50, 51, 199};
+        for (int i = indices.length - 1; i >= 0; i--) {
+            single.deleteTask(indices[i]);
+        }
+
+        assertEquals(11, batch.findTasks("task 5").size()); // Builds the indexes the batch has to drop
+        assertEquals(200, batch.getTasksInOrder(SortKey.Field.NAME).size());
+
+        List<Task> removed = batch.deleteTasks(indices);
+
+        assertEquals(6, removed.size());
+        assertEquals("task 50", removed.get(3).getDescription());
+        assertEquals(descriptionsOf(single), descriptionsOf(batch));
+        assertEquals(2, batch.getDoneCount());
+        assertArrayEquals(new int[] {0, 145}, batch.positionsWithStatus(true));
+        assertEquals(1, batch.findTasks("task 52").size());
+        assertEquals(9, batch.findTasks("task 5").size());
+        assertEquals(194, batch.getTasksInOrder(SortKey.Field.NAME).size());
+        assertArrayEquals(new int[] {47}, batch.positionsContaining("task 52"));
+        assertThrows(GalathException.class, () -> batch.deleteTasks(new int[] {5, 194}));
+        assertEquals(194, batch.size());
+
+        assertTrue(batch.undo());
+        assertEquals(200, batch.size());
+        assertEquals(4, batch.getDoneCount());
+        assertTrue(batch.undo());
+        assertEquals(0, batch.getDoneCount());
+    }
+
+    @Test
+    public void markTaskById_afterSortDeleteAndUndo_findsSameTask() throws Exception {
+        TaskList tasks = new TaskList();
+        for (int i = 0; i < 100; i++) {
+            tasks.addTask(new Todo("task " + (i * 37 % 100)));
+        }
+        tasks.sortByName();
+        tasks.deleteTasks(new int[] {0, 10, 20});
+        tasks.deleteTask(5);
+        tasks.undo();
+        tasks.addTask(new Todo("late task"));
+
+        for (Task task : tasks.snapshot()) {
+            assertTrue(tasks.markTaskById(task.getId()) == task);
+        }
+        assertEquals(tasks.size(), tasks.getDoneCount());
+        Task last = tasks.snapshot().get(tasks.size() - 1);
+        assertTrue(tasks.deleteTaskById(last.getId()) == last);
+        assertThrows(GalathException.class, () -> tasks.markTaskById(last.getId()));
+    }
+
+    private static String descriptionsOf(TaskList tasks) {
+        ArrayList<String> descriptions = new ArrayList<>();
+        for (Task task : tasks.snapshot()) {
+            descriptions.add(task.getDescription());
+        }
+        return descriptions.toString();
+    }
+}
@@ -0,0 +1,62 @@
+package galath.task;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class TaskVectorTest {
+    @Test
+    public void insertRemoveSetDone_randomOperations_matchArrayList() {
+        Random random = new Random(5);
+        ArrayList<Task> expectedTasks = new ArrayList<>();
+        ArrayList<Boolean> expectedFlags = new ArrayList<>();
+        TaskVector vector = TaskVector.EMPTY;
+        for (int i = 0; i < 3000; i++) {
+            int choice = random.nextInt(4);
+            if (choice < 2 || expectedTasks.isEmpty()) {
+                int index = random.nextInt(expectedTasks.size() + 1);
+                Task task = new Todo("task " + i);
+                expectedTasks.add(index, task);
+                expectedFlags.add(index, false);
+                vector = vector.insert(index, task, false);
+            } else if (choice == 2) {
+                int index = random.nextInt(expectedTasks.size());
+                expectedTasks.remove(index);
+                expectedFlags.remove(index);
+                vector = vector.remove(index);
+            } else {
+                int index = random.nextInt(expectedTasks.size());
+                boolean isDone = random.nextBoolean();
+                expectedFlags.set(index, isDone);
+                vector = vector.setDone(index, isDone);
+            }
+        }
+
+        assertEquals(expectedTasks.size(), vector.size());
+        for (int i = 0; i < expectedTasks.size(); i++) {
+            assertTrue(vector.get(i) == expectedTasks.get(i));
+            assertEquals(expectedFlags.get(i), vector.getIsDone(i));
+        }
+    }
+
+    @Test
+    public void restore_olderVersion_unaffectedByLaterChanges() {
+        ArrayList<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            tasks.add(new Todo("task " + i));
+        }
+        TaskVector before = TaskVector.of(tasks);
+
+        TaskVector after = before.remove(10).setDone(0, true).insert(50, new Todo("new"), true);
+        ArrayList<Task> restored = before.restore();
+
+        assertEquals(100, after.size());
+        assertTrue(after.getIsDone(50));
+        assertEquals(tasks, restored);
+        assertTrue(!restored.get(0).getIsDone());
+    }
+}